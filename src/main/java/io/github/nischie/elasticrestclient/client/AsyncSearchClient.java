@@ -0,0 +1,154 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.documents.AsyncSearchResult;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.queries.AsyncSearchOptions;
+import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Client for async searches in Elasticsearch.
+ * <p>
+ * Submits long-running searches to the {@code _async_search} endpoint, which returns after a short wait with
+ * the results of the shards completed so far and keeps running the search in the cluster. The returned
+ * {@link AsyncSearchHandle} polls for the hits and aggregations reduced so far, extends the retention of the
+ * results or deletes them. A stored search can be resumed later by its ID, e.g. from another process.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class AsyncSearchClient {
+    private final RestClient restClient;
+
+    /**
+     * Constructs an AsyncSearchClient with the given RestClient.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     */
+    public AsyncSearchClient(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    /**
+     * Submits an async search with the default options.
+     *
+     * @param index the index to search
+     * @param query the search query
+     * @return a handle for the submitted search
+     */
+    public AsyncSearchHandle submit(Index index, StringSearchQuery query) {
+        return submit(index, query, null, AsyncSearchOptions.defaults());
+    }
+
+    /**
+     * Submits an async search.
+     *
+     * @param index the index to search
+     * @param query the search query
+     * @param options the wait, retention and size of the search
+     * @return a handle for the submitted search
+     */
+    public AsyncSearchHandle submit(Index index, StringSearchQuery query, AsyncSearchOptions options) {
+        return submit(index, query, null, options);
+    }
+
+    /**
+     * Submits an async search with aggregations, which are reduced from the completed shards with each poll.
+     *
+     * @param index the index to search
+     * @param query the search query
+     * @param aggregations the aggregations by name, e.g. {@code Map.of("hosts", Map.of("terms", Map.of("field", "host")))}, or null
+     * @param options the wait, retention and size of the search
+     * @return a handle for the submitted search
+     */
+    public AsyncSearchHandle submit(Index index, StringSearchQuery query, Map<String, Object> aggregations, AsyncSearchOptions options) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("query", query.getQuery());
+        if (aggregations != null && !aggregations.isEmpty()) {
+            body.put("aggs", aggregations);
+        }
+        AsyncSearchResult result = restClient.post()
+                .uri(index._index() + "/_async_search?" + options.toQueryParams())
+                .body(body)
+                .retrieve()
+                .body(AsyncSearchResult.class);
+        if (result == null) {
+            throw new RuntimeException("No response returned by _async_search on " + index._index());
+        }
+        return new AsyncSearchHandle(this, result.id(), result);
+    }
+
+    /**
+     * Creates a handle for a stored async search, e.g. to retrieve its results in another process.
+     *
+     * @param id the ID of the async search
+     * @return a handle for the search
+     */
+    public AsyncSearchHandle handle(String id) {
+        return new AsyncSearchHandle(this, id, null);
+    }
+
+    /**
+     * Returns the state and the results so far of an async search.
+     *
+     * @param id the ID of the async search
+     * @param waitForCompletionTimeout how long to wait for the search to complete before returning, or null to return immediately
+     * @return the state and the results so far
+     */
+    public AsyncSearchResult get(String id, Duration waitForCompletionTimeout) {
+        String uri = "_async_search/" + id;
+        if (waitForCompletionTimeout != null) {
+            uri += "?wait_for_completion_timeout=" + waitForCompletionTimeout.toMillis() + "ms";
+        }
+        return restClient.get()
+                .uri(uri)
+                .retrieve()
+                .body(AsyncSearchResult.class);
+    }
+
+    /**
+     * Returns the state of an async search without its results.
+     *
+     * @param id the ID of the async search
+     * @return the state of the search, without response
+     */
+    public AsyncSearchResult status(String id) {
+        return restClient.get()
+                .uri("_async_search/status/" + id)
+                .retrieve()
+                .body(AsyncSearchResult.class);
+    }
+
+    /**
+     * Extends the retention of the results of an async search.
+     *
+     * @param id the ID of the async search
+     * @param keepAlive how long the results are kept from now on
+     * @return the state and the results so far
+     */
+    public AsyncSearchResult extend(String id, Duration keepAlive) {
+        return restClient.get()
+                .uri("_async_search/" + id + "?keep_alive=" + keepAlive.toMillis() + "ms")
+                .retrieve()
+                .body(AsyncSearchResult.class);
+    }
+
+    /**
+     * Deletes an async search, cancelling it if it is still running, and its results.
+     *
+     * @param id the ID of the async search
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> delete(String id) {
+        return restClient.method(HttpMethod.DELETE)
+                .uri("_async_search/" + id)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+}
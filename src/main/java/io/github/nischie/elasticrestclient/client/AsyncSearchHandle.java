@@ -0,0 +1,133 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.documents.AsyncSearchResult;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Handle for an async search submitted to {@code _async_search}.
+ * <p>
+ * Allows polling the partial results of the search, extending the retention of its results,
+ * deleting it, and waiting for its completion. A search that completed within the wait of the
+ * submission and was not kept has no ID; its handle returns the result of the submission.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class AsyncSearchHandle {
+    private final AsyncSearchClient asyncSearchClient;
+    private final String id;
+    private volatile AsyncSearchResult lastResult;
+
+    /**
+     * Constructs an AsyncSearchHandle for the given search.
+     *
+     * @param asyncSearchClient the AsyncSearchClient to use for async search operations
+     * @param id the ID of the search, or null if it completed and was not kept
+     * @param lastResult the result of the submission, or null if not known
+     */
+    public AsyncSearchHandle(AsyncSearchClient asyncSearchClient, String id, AsyncSearchResult lastResult) {
+        this.asyncSearchClient = asyncSearchClient;
+        this.id = id;
+        this.lastResult = lastResult;
+    }
+
+    /**
+     * Returns the ID of the search, which can be stored to resume the search later with
+     * {@link AsyncSearchClient#handle(String)}.
+     *
+     * @return the ID of the search, or null if it completed within the wait of the submission and was not kept
+     */
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Returns the most recently received result, without a request.
+     *
+     * @return the last result, or null if none was received yet
+     */
+    public AsyncSearchResult lastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Returns the hits and aggregations of the search so far.
+     *
+     * @return the state and the results so far
+     */
+    public AsyncSearchResult poll() {
+        if (id == null) {
+            return lastResult;
+        }
+        AsyncSearchResult result = asyncSearchClient.get(id, null);
+        lastResult = result;
+        return result;
+    }
+
+    /**
+     * Returns the state of the search without fetching its results.
+     *
+     * @return the state of the search, without response
+     */
+    public AsyncSearchResult status() {
+        return id == null ? lastResult : asyncSearchClient.status(id);
+    }
+
+    /**
+     * Extends the retention of the results of the search.
+     *
+     * @param keepAlive how long the results are kept from now on
+     */
+    public void extend(Duration keepAlive) {
+        if (id != null) {
+            lastResult = asyncSearchClient.extend(id, keepAlive);
+        }
+    }
+
+    /**
+     * Deletes the search, cancelling it if it is still running, and its results.
+     */
+    public void delete() {
+        if (id != null) {
+            asyncSearchClient.delete(id);
+        }
+    }
+
+    /**
+     * Waits until the search has completed.
+     *
+     * @param pollInterval the maximum time each poll waits for the search to complete
+     * @return the final result of the search
+     */
+    public AsyncSearchResult awaitCompletion(Duration pollInterval) {
+        return awaitCompletion(pollInterval, result -> {});
+    }
+
+    /**
+     * Waits until the search has completed, reporting each partial result to the given listener.
+     * Each poll waits up to the poll interval on the server for the search to complete, so the
+     * final result is returned as soon as it is available. With a {@link ResiliencePolicy}, the timeout
+     * of each poll is the read timeout plus the poll interval; polls are not hedged.
+     *
+     * @param pollInterval the maximum time each poll waits for the search to complete
+     * @param partialResults the listener receiving each partial result while the search is running
+     * @return the final result of the search
+     * @throws java.lang.RuntimeException if the search failed
+     */
+    public AsyncSearchResult awaitCompletion(Duration pollInterval, Consumer<AsyncSearchResult> partialResults) {
+        AsyncSearchResult result = lastResult;
+        while (id != null && (result == null || result.running())) {
+            if (result != null) {
+                partialResults.accept(result);
+            }
+            result = asyncSearchClient.get(id, pollInterval);
+            lastResult = result;
+        }
+        if (result != null && result.error() != null) {
+            throw new RuntimeException("Async search " + id + " failed: " + result.error());
+        }
+        return result;
+    }
+}
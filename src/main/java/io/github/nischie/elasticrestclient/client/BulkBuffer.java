@@ -0,0 +1,400 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Buffer for the NDJSON body of a bulk request, holding UTF-8 encoded action and source lines.
+ * <p>
+ * The bytes are staged in chunks taken from a {@link BulkBufferPool}, which can be off-heap,
+ * and streamed from there to the request. Sources are appended as bytes, so pre-serialized documents
+ * are copied verbatim and no intermediate String of the body is built.
+ * <p>
+ * Requests superseded by a later one can be discarded; their bytes stay in the chunks, but are skipped
+ * when the body is written, so no bytes have to be moved. The latest request per key can be tracked,
+ * e.g. per document, to find the request a new one supersedes.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+class BulkBuffer {
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final BulkBufferPool pool;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final OutputStream outputStream = new ChunkOutputStream();
+    private ByteBuffer current;
+    private long byteSize;
+    private long discardedBytes;
+    private int requestCount;
+    private final TreeMap<Long, Long> discarded = new TreeMap<>();
+    private final Map<Object, Request> tracked = new HashMap<>();
+
+    /**
+     * The type of a bulk request.
+     */
+    enum Op { INDEX, UPDATE, DELETE }
+
+    /**
+     * The position of a complete bulk request in the buffer.
+     *
+     * @param op          the type of the request
+     * @param start       the position of the action line
+     * @param sourceStart the position of the source, or of the partial document of an update
+     * @param sourceEnd   the position after the source
+     * @param end         the position after the request
+     */
+    record Request(Op op, long start, long sourceStart, long sourceEnd, long end) {}
+
+    /**
+     * Constructs a BulkBuffer taking its chunks from the given pool.
+     *
+     * @param pool the pool to take chunks from
+     */
+    BulkBuffer(BulkBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Appends a UTF-8 encoded string.
+     *
+     * @param text the text to append
+     */
+    void append(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends a JSON document without line breaks, so it stays on one NDJSON line.
+     * Line breaks in the document can only be insignificant whitespace in valid JSON,
+     * so they are replaced by spaces.
+     *
+     * @param json the UTF-8 encoded JSON document
+     */
+    void appendJson(byte[] json) {
+        appendJson(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Appends a JSON document without line breaks, so it stays on one NDJSON line.
+     * Line breaks in the document can only be insignificant whitespace in valid JSON,
+     * so they are replaced by spaces.
+     *
+     * @param json the UTF-8 encoded JSON document, read from its position to its limit
+     */
+    void appendJson(ByteBuffer json) {
+        ByteBuffer source = json.duplicate();
+        while (source.hasRemaining()) {
+            ByteBuffer target = writableChunk();
+            int length = Math.min(source.remaining(), target.remaining());
+            int start = target.position();
+            target.put(source.slice(source.position(), length));
+            source.position(source.position() + length);
+            for (int i = start; i < start + length; i++) {
+                byte b = target.get(i);
+                if (b == '\n' || b == '\r') {
+                    target.put(i, (byte) ' ');
+                }
+            }
+            byteSize += length;
+        }
+    }
+
+    /**
+     * Appends a JSON document read from the given stream without line breaks.
+     *
+     * @param json the stream of the UTF-8 encoded JSON document, read to its end
+     * @throws java.io.IOException if reading fails
+     */
+    void appendJson(InputStream json) throws IOException {
+        byte[] copyBuffer = new byte[COPY_BUFFER_SIZE];
+        int read;
+        while ((read = json.read(copyBuffer)) != -1) {
+            appendJson(ByteBuffer.wrap(copyBuffer, 0, read));
+        }
+    }
+
+    /**
+     * Returns a stream writing to the end of this buffer, e.g. for serializing a source directly into it.
+     * The written bytes are appended verbatim.
+     *
+     * @return the output stream
+     */
+    OutputStream outputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Marks the end of a complete bulk request, consisting of the action line and an optional source line.
+     */
+    void endRequest() {
+        requestCount++;
+    }
+
+    /**
+     * Returns the number of complete bulk requests in this buffer.
+     *
+     * @return the number of requests
+     */
+    int requestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of bytes of the body in this buffer, without discarded requests.
+     *
+     * @return the size in bytes
+     */
+    long byteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Returns the position after the last appended byte, including discarded requests.
+     * Positions mark the bounds of requests for {@link #truncate(long)}, {@link #read(long, long)}
+     * and {@link #discard(Request)}.
+     *
+     * @return the current position
+     */
+    long position() {
+        return byteSize + discardedBytes;
+    }
+
+    /**
+     * Returns the bytes between two positions.
+     *
+     * @param start the first position to read
+     * @param end   the position after the last byte to read
+     * @return a copy of the bytes
+     */
+    byte[] read(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        long base = 0;
+        for (ByteBuffer chunk : chunks) {
+            long chunkEnd = base + chunk.position();
+            if (chunkEnd > start && base < end) {
+                int from = (int) Math.max(start, base);
+                int to = (int) Math.min(end, chunkEnd);
+                chunk.get((int) (from - base), bytes, (int) (from - start), to - from);
+            }
+            base = chunkEnd;
+        }
+        return bytes;
+    }
+
+    /**
+     * Discards a complete request, so it is skipped when the body is written.
+     * Discarding a request that is already discarded has no effect.
+     *
+     * @param request the request to discard
+     */
+    void discard(Request request) {
+        if (discarded.putIfAbsent(request.start(), request.end()) != null) {
+            return;
+        }
+        discardedBytes += request.end() - request.start();
+        byteSize -= request.end() - request.start();
+        requestCount--;
+    }
+
+    /**
+     * Returns the request last tracked for the given key.
+     *
+     * @param key the key of the request, e.g. its index and document ID
+     * @return the request, or null if none is tracked
+     */
+    Request tracked(Object key) {
+        return tracked.get(key);
+    }
+
+    /**
+     * Tracks the request for the given key, replacing the request tracked before.
+     *
+     * @param key     the key of the request
+     * @param request the request, or null to stop tracking the key
+     */
+    void track(Object key, Request request) {
+        if (request == null) {
+            tracked.remove(key);
+        } else {
+            tracked.put(key, request);
+        }
+    }
+
+    /**
+     * Returns whether this buffer contains no requests.
+     *
+     * @return true if empty, false otherwise
+     */
+    boolean isEmpty() {
+        return requestCount == 0;
+    }
+
+    /**
+     * Stops tracking all requests.
+     */
+    void untrackAll() {
+        tracked.clear();
+    }
+
+    /**
+     * Writes the buffered body to the given stream.
+     *
+     * @param out the stream to write to
+     * @throws java.io.IOException if writing fails
+     */
+    void writeTo(OutputStream out) throws IOException {
+        byte[] copyBuffer = null;
+        for (ByteBuffer data : liveSlices()) {
+            if (data.hasArray()) {
+                out.write(data.array(), data.arrayOffset(), data.remaining());
+            } else {
+                if (copyBuffer == null) {
+                    copyBuffer = new byte[COPY_BUFFER_SIZE];
+                }
+                while (data.hasRemaining()) {
+                    int length = Math.min(copyBuffer.length, data.remaining());
+                    data.get(copyBuffer, 0, length);
+                    out.write(copyBuffer, 0, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the buffered body into the given buffer, starting at its position.
+     *
+     * @param target the buffer to copy into, with at least {@link #byteSize()} bytes remaining
+     */
+    void copyTo(ByteBuffer target) {
+        for (ByteBuffer data : liveSlices()) {
+            target.put(data);
+        }
+    }
+
+    /**
+     * Moves all requests of this buffer to the end of the target buffer and clears this buffer.
+     * Discarded requests are dropped and tracked requests are not moved, since their positions change.
+     *
+     * @param target the buffer to move the requests to
+     */
+    void moveTo(BulkBuffer target) {
+        for (ByteBuffer data : liveSlices()) {
+            while (data.hasRemaining()) {
+                ByteBuffer targetChunk = target.writableChunk();
+                int length = Math.min(data.remaining(), targetChunk.remaining());
+                targetChunk.put(data.slice(data.position(), length));
+                data.position(data.position() + length);
+                target.byteSize += length;
+            }
+        }
+        target.requestCount += requestCount;
+        clear();
+    }
+
+    /**
+     * Drops all bytes after the given position, e.g. to roll back a partially appended request.
+     * No request after the position may have been discarded.
+     *
+     * @param size the position to keep the bytes up to, as returned by {@link #position()} before appending
+     */
+    void truncate(long size) {
+        long remaining = size;
+        int last = 0;
+        for (; last < chunks.size(); last++) {
+            ByteBuffer chunk = chunks.get(last);
+            if (remaining <= chunk.position()) {
+                chunk.position((int) remaining);
+                break;
+            }
+            remaining -= chunk.position();
+        }
+        while (chunks.size() > last + 1) {
+            pool.release(chunks.remove(chunks.size() - 1));
+        }
+        current = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        byteSize = size - discardedBytes;
+    }
+
+    /**
+     * Removes all requests from this buffer and returns its chunks to the pool.
+     */
+    void clear() {
+        chunks.forEach(pool::release);
+        chunks.clear();
+        current = null;
+        byteSize = 0;
+        discardedBytes = 0;
+        requestCount = 0;
+        discarded.clear();
+        tracked.clear();
+    }
+
+    private List<ByteBuffer> liveSlices() {
+        List<ByteBuffer> slices = new ArrayList<>(chunks.size() + 2 * discarded.size());
+        var skips = discarded.entrySet().iterator();
+        Map.Entry<Long, Long> skip = skips.hasNext() ? skips.next() : null;
+        long base = 0;
+        for (ByteBuffer chunk : chunks) {
+            int length = chunk.position();
+            int offset = 0;
+            while (offset < length) {
+                long at = base + offset;
+                while (skip != null && skip.getValue() <= at) {
+                    skip = skips.hasNext() ? skips.next() : null;
+                }
+                if (skip != null && skip.getKey() <= at) {
+                    offset = (int) Math.min(length, skip.getValue() - base);
+                    continue;
+                }
+                int sliceEnd = skip == null ? length : (int) Math.min(length, skip.getKey() - base);
+                slices.add(chunk.slice(offset, sliceEnd - offset));
+                offset = sliceEnd;
+            }
+            base += length;
+        }
+        return slices;
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        int remaining = length;
+        while (remaining > 0) {
+            ByteBuffer target = writableChunk();
+            int chunkLength = Math.min(remaining, target.remaining());
+            target.put(bytes, offset, chunkLength);
+            offset += chunkLength;
+            remaining -= chunkLength;
+            byteSize += chunkLength;
+        }
+    }
+
+    private ByteBuffer writableChunk() {
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire();
+            chunks.add(current);
+        }
+        return current;
+    }
+
+    private final class ChunkOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            writableChunk().put((byte) b);
+            byteSize++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            BulkBuffer.this.write(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Pool of fixed-size byte buffer chunks used to stage the UTF-8 encoded body of bulk requests.
+ * <p>
+ * With direct chunks the bulk body is kept off-heap, so large batches do not add to the heap
+ * and to garbage collection pauses. Released chunks are kept for reuse up to the configured pool size;
+ * chunks beyond it are dropped.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class BulkBufferPool {
+    /**
+     * The default chunk size of 64 KiB.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final int chunkSize;
+    private final int maxPooledChunks;
+    private final boolean direct;
+    private final Deque<ByteBuffer> pooled = new ArrayDeque<>();
+    private long chunksAllocated;
+    private long chunksInUse;
+    private long peakChunksInUse;
+
+    /**
+     * Constructs a BulkBufferPool.
+     *
+     * @param chunkSize the size of a chunk in bytes
+     * @param maxPooledChunks the maximum number of released chunks kept for reuse
+     * @param direct whether to allocate direct (off-heap) chunks
+     */
+    public BulkBufferPool(int chunkSize, int maxPooledChunks, boolean direct) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        this.chunkSize = chunkSize;
+        this.maxPooledChunks = maxPooledChunks;
+        this.direct = direct;
+    }
+
+    /**
+     * Creates a pool of direct (off-heap) chunks.
+     *
+     * @param chunkSize the size of a chunk in bytes
+     * @param maxPooledChunks the maximum number of released chunks kept for reuse
+     * @return a new BulkBufferPool
+     */
+    public static BulkBufferPool offHeap(int chunkSize, int maxPooledChunks) {
+        return new BulkBufferPool(chunkSize, maxPooledChunks, true);
+    }
+
+    /**
+     * Returns the size of a chunk.
+     *
+     * @return the chunk size in bytes
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Takes a cleared chunk from the pool, allocating a new one if none is pooled.
+     *
+     * @return the chunk
+     */
+    synchronized ByteBuffer acquire() {
+        ByteBuffer chunk = pooled.pollFirst();
+        if (chunk == null) {
+            chunk = direct ? ByteBuffer.allocateDirect(chunkSize) : ByteBuffer.allocate(chunkSize);
+            chunksAllocated++;
+        }
+        chunksInUse++;
+        peakChunksInUse = Math.max(peakChunksInUse, chunksInUse);
+        return chunk;
+    }
+
+    /**
+     * Returns a chunk to the pool.
+     *
+     * @param chunk the chunk to return
+     */
+    synchronized void release(ByteBuffer chunk) {
+        chunksInUse--;
+        if (pooled.size() < maxPooledChunks) {
+            chunk.clear();
+            pooled.addFirst(chunk);
+        }
+    }
+
+    /**
+     * Returns the current usage of this pool.
+     *
+     * @return the usage metrics
+     */
+    public synchronized Metrics metrics() {
+        return new Metrics(chunkSize, direct, chunksAllocated, chunksInUse, pooled.size(), peakChunksInUse);
+    }
+
+    /**
+     * Usage metrics of a BulkBufferPool.
+     *
+     * @param chunkSize the size of a chunk in bytes
+     * @param direct whether the chunks are direct (off-heap)
+     * @param chunksAllocated the number of chunks allocated since creation
+     * @param chunksInUse the number of chunks currently holding bulk data
+     * @param chunksPooled the number of released chunks kept for reuse
+     * @param peakChunksInUse the highest number of chunks in use at the same time
+     */
+    public record Metrics(
+            int chunkSize,
+            boolean direct,
+            long chunksAllocated,
+            long chunksInUse,
+            long chunksPooled,
+            long peakChunksInUse
+    ) {
+        /**
+         * Returns the memory currently held by this pool, in use or pooled.
+         *
+         * @return the held memory in bytes
+         */
+        public long bytesHeld() {
+            return (chunksInUse + chunksPooled) * chunkSize;
+        }
+    }
+}
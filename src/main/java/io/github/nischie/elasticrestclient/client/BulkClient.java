@@ -1,40 +1,75 @@
 package io.github.nischie.elasticrestclient.client;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.github.nischie.elasticrestclient.domain.indices.TimeSeriesIndex;
 import io.github.nischie.elasticrestclient.domain.model.Id;
 import io.github.nischie.elasticrestclient.domain.model.Index;
-import io.github.nischie.elasticrestclient.util.JsonUtil;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Client for bulk operations in Elasticsearch.
  * <p>
- * Supports bulk indexing, updating, and deleting documents using the Elasticsearch Bulk API.
- * Uses Spring's RestClient for HTTP communication and JsonUtil for serialization.
+ * Supports bulk indexing, creating, updating, and deleting documents using the Elasticsearch Bulk API.
+ * Create requests without ID append to data streams; a {@link TimeSeriesIndex} routes documents to the index
+ * of their timestamp's period.
+ * The routing key of an {@link Id} is passed as routing metadata of its action.
+ * Uses Spring's RestClient for HTTP communication and JsonCodec for serialization.
  *
  * @author nschieschke
  * @version $Id: $Id
  */
 public class BulkClient {
+    private static final long SPOOL_INITIAL_BACKOFF_MILLIS = 500;
+    private static final long SPOOL_MAX_BACKOFF_MILLIS = 30_000;
+    private static final Set<Integer> REJECTED_BATCH_STATUS = Set.of(400, 413);
     private final RestClient restClient;
-    private final String indexRequest = """
-            { "index": { "_index": "%s", "_id": "%s" } }
-            %s
+    private final JsonCodec codec;
+    private final String indexAction = """
+            { "index": { "_index": "%s", "_id": "%s"%s } }
             """;
-    private final String updateRequest = """
-            { "update": { "_index": "%s", "_id": "%s" } }
-            { "doc": %s }
+    private final String updateAction = """
+            { "update": { "_index": "%s", "_id": "%s"%s } }
             """;
-    private final String deleteRequest = """
-            { "delete": { "_index": "%s", "_id": "%s" } }
+    private final String deleteAction = """
+            { "delete": { "_index": "%s", "_id": "%s"%s } }
+            """;
+    private final String createAction = """
+            { "create": { "_index": "%s"%s } }
             """;
 
-    private List<String> bulkRequests = new ArrayList<>();
+    private BulkBufferPool bufferPool = new BulkBufferPool(BulkBufferPool.DEFAULT_CHUNK_SIZE, 16, false);
+    private BulkBuffer bulkRequests = new BulkBuffer(bufferPool);
     private boolean bulkAutoCommit = false;
+    private BulkSpool spool;
+    private int spoolFailures;
+    private long spoolRetryNotBefore;
+    private BulkSizing sizing;
+    private Refresh refresh = Refresh.FALSE;
+    private Executor executor;
+    private final AtomicReference<RuntimeException> asyncFailure = new AtomicReference<>();
+    private boolean coalescing = false;
+
+    private record DocumentKey(Index index, Id id) {}
 
     /**
      * Constructs a BulkClient with the given RestClient.
@@ -42,7 +77,17 @@ public class BulkClient {
      * @param restclient the RestClient to use for HTTP operations
      */
     public BulkClient(RestClient restclient) {
+        this(restclient, JsonCodec.defaultCodec());
+    }
+    /**
+     * Constructs a BulkClient with the given RestClient and JsonCodec.
+     *
+     * @param restclient the RestClient to use for HTTP operations
+     * @param codec the JsonCodec to use for serialization
+     */
+    public BulkClient(RestClient restclient, JsonCodec codec) {
         this.restClient = restclient;
+        this.codec = codec;
     }
     /**
      * Adds an index request to the bulk queue.
@@ -54,12 +99,144 @@ public class BulkClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public <T> void addIndexRequest(Index index, Id id, T doc) throws JsonProcessingException {
-        String json = JsonUtil.serialize(doc);
-        bulkRequests.add(indexRequest.formatted(index._index(), id._id(), json));
+        long mark = bulkRequests.position();
+        bulkRequests.append(indexAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        long sourceStart = bulkRequests.position();
+        serializeInto(doc, mark);
+        long sourceEnd = bulkRequests.position();
+        bulkRequests.append("\n");
+        endRequest(index, id, BulkBuffer.Op.INDEX, mark, sourceStart, sourceEnd);
+        if (bulkAutoCommit)  executeBulk(false);
+    }
+    /**
+     * Adds an index request for a pre-serialized document to the bulk queue.
+     * The bytes are copied verbatim into the bulk body, without parsing or re-serializing them.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the UTF-8 encoded JSON document
+     */
+    public void addIndexRequest(Index index, Id id, byte[] source) {
+        addIndexRequest(index, id, ByteBuffer.wrap(source));
+    }
+    /**
+     * Adds an index request for a pre-serialized document to the bulk queue.
+     * The bytes between the buffer's position and limit are copied verbatim into the bulk body,
+     * without parsing or re-serializing them. The buffer's position is not changed.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the UTF-8 encoded JSON document
+     */
+    public void addIndexRequest(Index index, Id id, ByteBuffer source) {
+        long mark = bulkRequests.position();
+        bulkRequests.append(indexAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        long sourceStart = bulkRequests.position();
+        bulkRequests.appendJson(source);
+        long sourceEnd = bulkRequests.position();
+        bulkRequests.append("\n");
+        endRequest(index, id, BulkBuffer.Op.INDEX, mark, sourceStart, sourceEnd);
+        if (bulkAutoCommit)  executeBulk(false);
+    }
+    /**
+     * Adds an index request for a pre-serialized document to the bulk queue.
+     * The stream is read to its end and copied verbatim into the bulk body, without parsing or re-serializing it.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the stream of the UTF-8 encoded JSON document
+     * @throws java.io.IOException if reading the stream fails
+     */
+    public void addIndexRequest(Index index, Id id, InputStream source) throws IOException {
+        long mark = bulkRequests.position();
+        bulkRequests.append(indexAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        long sourceStart = bulkRequests.position();
+        try {
+            bulkRequests.appendJson(source);
+        } catch (IOException e) {
+            bulkRequests.truncate(mark);
+            throw e;
+        }
+        long sourceEnd = bulkRequests.position();
+        bulkRequests.append("\n");
+        endRequest(index, id, BulkBuffer.Op.INDEX, mark, sourceStart, sourceEnd);
+        if (bulkAutoCommit)  executeBulk(false);
+    }
+    /**
+     * Adds an index request to the index of the time series period containing the document's timestamp.
+     *
+     * @param index the time series to store the document in
+     * @param id the document ID
+     * @param doc the document object to serialize and store
+     * @param timestamp the function returning the timestamp field of the document, see {@link TimeSeriesIndex#indexFor(Object)}
+     * @param <T> the type of the document
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> void addIndexRequest(TimeSeriesIndex index, Id id, T doc, Function<? super T, ?> timestamp) throws JsonProcessingException {
+        addIndexRequest(index.indexFor(timestamp.apply(doc)), id, doc);
+    }
+    /**
+     * Adds a create request to the bulk queue, which fails for the document if its ID already exists.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param doc the document object to serialize and store
+     * @param <T> the type of the document
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> void addCreateRequest(Index index, Id id, T doc) throws JsonProcessingException {
+        long mark = bulkRequests.position();
+        bulkRequests.append(createAction.formatted(index._index(), ", \"_id\": \"" + id._id() + "\"" + routingMetadata(id)));
+        serializeInto(doc, mark);
+        bulkRequests.append("\n");
+        bulkRequests.endRequest();
+        if (coalescing) {
+            // later requests for the ID must stay after the create
+            bulkRequests.track(new DocumentKey(index, id), null);
+        }
+        if (bulkAutoCommit)  executeBulk(false);
+    }
+    /**
+     * Adds a create request with an ID generated by Elasticsearch to the bulk queue.
+     * Data streams only accept create requests; the document needs a {@code @timestamp} field.
+     *
+     * @param index the data stream or index to append the document to
+     * @param doc the document object to serialize and store
+     * @param <T> the type of the document
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> void addCreateRequest(Index index, T doc) throws JsonProcessingException {
+        long mark = bulkRequests.position();
+        bulkRequests.append(createAction.formatted(index._index(), ""));
+        serializeInto(doc, mark);
+        bulkRequests.append("\n");
+        bulkRequests.endRequest();
+        if (bulkAutoCommit)  executeBulk(false);
+    }
+    /**
+     * Adds a create request for a pre-serialized document with an ID generated by Elasticsearch to the bulk queue.
+     * The bytes are copied verbatim into the bulk body, without parsing or re-serializing them.
+     *
+     * @param index the data stream or index to append the document to
+     * @param source the UTF-8 encoded JSON document
+     */
+    public void addCreateRequest(Index index, byte[] source) {
+        long mark = bulkRequests.position();
+        try {
+            bulkRequests.append(createAction.formatted(index._index(), ""));
+            bulkRequests.appendJson(ByteBuffer.wrap(source));
+            bulkRequests.append("\n");
+        } catch (RuntimeException e) {
+            bulkRequests.truncate(mark);
+            throw e;
+        }
+        bulkRequests.endRequest();
         if (bulkAutoCommit)  executeBulk(false);
     }
     /**
      * Adds an update request to the bulk queue.
+     * With coalescing enabled, the partial document is merged into a pending index or update request
+     * of the same document instead.
      *
      * @param index the index to update the document in
      * @param id the document ID
@@ -68,8 +245,22 @@ public class BulkClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public <T> void addUpdateRequest(Index index, Id id, T doc) throws JsonProcessingException {
-        String json = JsonUtil.serialize(doc);
-        bulkRequests.add(updateRequest.formatted(index._index(), id._id(), json));
+        long mark = bulkRequests.position();
+        bulkRequests.append(updateAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        bulkRequests.append("{ \"doc\": ");
+        long sourceStart = bulkRequests.position();
+        serializeInto(doc, mark);
+        long sourceEnd = bulkRequests.position();
+        bulkRequests.append(" }\n");
+        BulkBuffer.Request update = new BulkBuffer.Request(BulkBuffer.Op.UPDATE, mark, sourceStart, sourceEnd, bulkRequests.position());
+        BulkBuffer.Request previous = coalescing ? bulkRequests.tracked(new DocumentKey(index, id)) : null;
+        if (previous != null && previous.op() != BulkBuffer.Op.DELETE) {
+            // the merged request replaces the previous one, which is already discarded
+            bulkRequests.track(new DocumentKey(index, id), mergeUpdate(index, id, previous, update));
+            bulkRequests.endRequest();
+        } else {
+            endRequest(index, id, update);
+        }
         if (bulkAutoCommit) executeBulk(false);
     }
     /**
@@ -80,32 +271,360 @@ public class BulkClient {
      * @param id the document ID
      */
     public void addDeleteRequest(Index index, Id id) {
-        bulkRequests.add(deleteRequest.formatted(index._index(), id._id()));
+        long mark = bulkRequests.position();
+        bulkRequests.append(deleteAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        long end = bulkRequests.position();
+        endRequest(index, id, BulkBuffer.Op.DELETE, mark, end, end);
         if (bulkAutoCommit)  executeBulk(false);
     }
     /**
-     * Executes the bulk operation if forced or if the bulk queue exceeds 10,000 requests.
+     * Executes the bulk operation if forced or if the bulk queue is full.
+     * The queue is full when it exceeds 10,000 requests, or, if a {@link BulkSizing} is set,
+     * when it reaches the batch size chosen by the sizing.
      * Clears the bulk queue after execution.
+     * <p>
+     * If a spool is set, the batch is written to the spool first and all pending batches are sent in order.
+     * If the cluster is unavailable, the batches stay in the spool and are sent by a later call
+     * instead of failing, so a forced execution with an empty queue also replays the spool.
+     * <p>
+     * If a sizing with an executor is set and no spool is set, batches are sent concurrently on the executor,
+     * and this call blocks while the sizing's concurrency is exhausted. A forced execution waits until
+     * all batches in flight have completed. A failure of a concurrent batch is thrown by the next call.
      *
      * @param force if true, forces execution regardless of queue size
      */
     public void executeBulk(Boolean force) {
-        if ((force || bulkRequests.size() > 10000) && !bulkRequests.isEmpty()) {
-            StringBuilder bodyBuffer =  new StringBuilder();
-            bulkRequests.forEach(bodyBuffer::append);
-            var response = restClient.post()
-                    .uri("_bulk")
-                    .body(bodyBuffer.toString())
+        executeBulk(force, refresh);
+    }
+    /**
+     * Executes the bulk operation like {@link #executeBulk(Boolean)}, sending the batches of this call
+     * with the given refresh policy, e.g. {@link Refresh#WAIT_FOR} to make a forced batch visible to search
+     * when this call returns.
+     *
+     * @param force if true, forces execution regardless of queue size
+     * @param refresh when the changes of the batches sent by this call become visible to search
+     */
+    public void executeBulk(Boolean force, Refresh refresh) {
+        RuntimeException failure = asyncFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+        if (spool != null) {
+            boolean spooled = false;
+            if ((force || isBatchFull()) && !bulkRequests.isEmpty()) {
+                try {
+                    spool.append(bulkRequests);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to spool bulk batch", e);
+                }
+                bulkRequests.clear();
+                spooled = true;
+            }
+            // while the cluster is unavailable, pending batches are retried with backoff, not on each added request
+            if (force || spooled || spool.pendingBatches() > 0 && System.nanoTime() - spoolRetryNotBefore >= 0) {
+                replaySpool(refresh);
+            }
+            return;
+        }
+        if ((force || isBatchFull()) && !bulkRequests.isEmpty()) {
+            if (sizing != null && executor != null) {
+                sendConcurrently(refresh);
+            } else {
+                try {
+                    sendBulk(ResilientRequestFactory.repeatable(bulkRequests::writeTo), refresh);
+                } finally {
+                    bulkRequests.clear();
+                }
+            }
+        }
+        if (force && sizing != null && executor != null) {
+            try {
+                sizing.awaitIdle();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for bulk batches", e);
+            }
+            failure = asyncFailure.getAndSet(null);
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+    /**
+     * Sends all pending batches of the spool in order, acknowledging each accepted batch.
+     * Stops at the first batch that cannot be sent because the cluster is unavailable.
+     * A batch the cluster rejects as a whole with 400 or 413 can never succeed; it is removed from the spool,
+     * the batches after it are replayed, and it is reported with its payload afterwards. On other client errors,
+     * e.g. 401 or 403, the batch stays pending and the error is thrown; {@link BulkSpool#discardHead()} skips it.
+     *
+     * @return true if the spool has no pending batches left, false otherwise
+     * @throws java.lang.IllegalStateException if no spool is set
+     * @throws RejectedBulkBatchException if the cluster rejected a batch as a whole, with later rejections suppressed
+     */
+    public boolean replaySpool() {
+        return replaySpool(refresh);
+    }
+    private boolean replaySpool(Refresh refresh) {
+        if (spool == null) {
+            throw new IllegalStateException("No bulk spool set");
+        }
+        synchronized (spool) {
+            BulkSpool.Entry entry;
+            RejectedBulkBatchException rejected = null;
+            while ((entry = spool.peek()) != null) {
+                ByteBuffer payload = entry.payload();
+                try {
+                    sendBulk(ResilientRequestFactory.repeatable(out -> Channels.newChannel(out).write(payload.duplicate())), refresh);
+                } catch (ResourceAccessException | HttpServerErrorException | HttpClientErrorException.TooManyRequests e) {
+                    long backoffMillis = Math.min(SPOOL_MAX_BACKOFF_MILLIS, SPOOL_INITIAL_BACKOFF_MILLIS << Math.min(spoolFailures++, 20));
+                    spoolRetryNotBefore = System.nanoTime() + backoffMillis * 1_000_000;
+                    if (rejected != null) {
+                        throw rejected;
+                    }
+                    return false;
+                } catch (HttpClientErrorException e) {
+                    if (!REJECTED_BATCH_STATUS.contains(e.getStatusCode().value())) {
+                        // e.g. an authentication error, which is not caused by the batch; it stays pending
+                        throw withRejection(e, rejected);
+                    }
+                    byte[] bytes = new byte[payload.remaining()];
+                    payload.duplicate().get(bytes);
+                    ack(entry);
+                    RejectedBulkBatchException rejection = new RejectedBulkBatchException(bytes, e);
+                    if (rejected == null) {
+                        rejected = rejection;
+                    } else {
+                        rejected.addSuppressed(rejection);
+                    }
+                    continue;
+                } catch (RestClientException e) {
+                    // the cluster did not accept the batch, so it stays pending
+                    throw withRejection(e, rejected);
+                } catch (RuntimeException e) {
+                    // the batch was accepted, but some items failed; resending would not help
+                    ack(entry);
+                    throw withRejection(e, rejected);
+                }
+                ack(entry);
+                spoolFailures = 0;
+            }
+            if (rejected != null) {
+                throw rejected;
+            }
+            return true;
+        }
+    }
+    // a batch rejected earlier in the replay is already removed from the spool, so it must not get lost
+    private static RuntimeException withRejection(RuntimeException e, RejectedBulkBatchException rejected) {
+        if (rejected != null) {
+            e.addSuppressed(rejected);
+        }
+        return e;
+    }
+    /**
+     * Sets a write-ahead spool, so batches survive cluster outages and restarts.
+     * Pending batches recovered by the spool are sent immediately if the cluster is available.
+     *
+     * @param spool the spool to write batches to before sending them, or null to disable spooling
+     */
+    public void setSpool(BulkSpool spool) {
+        this.spool = spool;
+        if (spool != null) {
+            replaySpool();
+        }
+    }
+    /**
+     * Sets the pool the bulk body is staged in, e.g. {@link BulkBufferPool#offHeap(int, int)}
+     * to keep large batches off the heap. Pending requests are moved to the new pool.
+     *
+     * @param bufferPool the pool to take buffer chunks from
+     */
+    public void setBufferPool(BulkBufferPool bufferPool) {
+        BulkBuffer buffer = new BulkBuffer(bufferPool);
+        bulkRequests.moveTo(buffer);
+        this.bufferPool = bufferPool;
+        this.bulkRequests = buffer;
+    }
+    /**
+     * Returns the usage metrics of the pool the bulk body is staged in.
+     *
+     * @return the buffer pool metrics
+     */
+    public BulkBufferPool.Metrics bufferMetrics() {
+        return bufferPool.metrics();
+    }
+    private void serializeInto(Object doc, long mark) throws JsonProcessingException {
+        try {
+            codec.serialize(doc, bulkRequests.outputStream());
+        } catch (JsonProcessingException e) {
+            bulkRequests.truncate(mark);
+            throw e;
+        } catch (IOException e) {
+            bulkRequests.truncate(mark);
+            throw new UncheckedIOException(e);
+        }
+    }
+    private void endRequest(Index index, Id id, BulkBuffer.Op op, long start, long sourceStart, long sourceEnd) {
+        endRequest(index, id, new BulkBuffer.Request(op, start, sourceStart, sourceEnd, bulkRequests.position()));
+    }
+    private void endRequest(Index index, Id id, BulkBuffer.Request request) {
+        if (coalescing) {
+            DocumentKey key = new DocumentKey(index, id);
+            BulkBuffer.Request previous = bulkRequests.tracked(key);
+            // an update after a delete has to fail like without coalescing, so both are kept
+            if (previous != null && request.op() != BulkBuffer.Op.UPDATE) {
+                bulkRequests.discard(previous);
+            }
+            bulkRequests.track(key, request);
+        }
+        bulkRequests.endRequest();
+    }
+    private BulkBuffer.Request mergeUpdate(Index index, Id id, BulkBuffer.Request previous, BulkBuffer.Request update)
+            throws JsonProcessingException {
+        Map<String, Object> merged = readSource(previous);
+        mergeInto(merged, readSource(update));
+        bulkRequests.truncate(update.start());
+        long mark = bulkRequests.position();
+        if (previous.op() == BulkBuffer.Op.INDEX) {
+            bulkRequests.append(indexAction.formatted(index._index(), id._id(), routingMetadata(id)));
+        } else {
+            bulkRequests.append(updateAction.formatted(index._index(), id._id(), routingMetadata(id)));
+            bulkRequests.append("{ \"doc\": ");
+        }
+        long sourceStart = bulkRequests.position();
+        serializeInto(merged, mark);
+        long sourceEnd = bulkRequests.position();
+        bulkRequests.append(previous.op() == BulkBuffer.Op.INDEX ? "\n" : " }\n");
+        bulkRequests.discard(previous);
+        return new BulkBuffer.Request(previous.op(), mark, sourceStart, sourceEnd, bulkRequests.position());
+    }
+    private Map<String, Object> readSource(BulkBuffer.Request request) throws JsonProcessingException {
+        try {
+            return codec.objectMapper().readValue(bulkRequests.read(request.sourceStart(), request.sourceEnd()), Map.class);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    // like Elasticsearch merges a partial document: objects recursively, all other values including arrays replaced
+    @SuppressWarnings("unchecked")
+    private static void mergeInto(Map<String, Object> target, Map<String, Object> changes) {
+        changes.forEach((field, value) -> {
+            if (value instanceof Map && target.get(field) instanceof Map) {
+                mergeInto((Map<String, Object>) target.get(field), (Map<String, Object>) value);
+            } else {
+                target.put(field, value);
+            }
+        });
+    }
+    private void ack(BulkSpool.Entry entry) {
+        try {
+            spool.ack(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to acknowledge spooled bulk batch", e);
+        }
+    }
+    /**
+     * Sets an adaptive sizing, so batches are sent when they reach the batch size chosen by the sizing
+     * instead of after 10,000 requests. Each response is fed back to the sizing.
+     *
+     * @param sizing the sizing to use, or null to send batches after 10,000 requests
+     */
+    public void setSizing(BulkSizing sizing) {
+        setSizing(sizing, null);
+    }
+    /**
+     * Sets an adaptive sizing and an executor to send up to the sizing's concurrency of batches in parallel.
+     * Batches are sent sequentially while a spool is set, to keep the order of the spool.
+     *
+     * @param sizing the sizing to use, or null to send batches sequentially after 10,000 requests
+     * @param executor the executor to send batches on, or null to send them on the calling thread
+     */
+    public void setSizing(BulkSizing sizing, Executor executor) {
+        this.sizing = sizing;
+        this.executor = executor;
+    }
+    private static String routingMetadata(Id id) {
+        return id.routing() == null ? "" : ", \"routing\": \"" + id.routing() + "\"";
+    }
+    private boolean isBatchFull() {
+        return sizing != null
+                ? bulkRequests.byteSize() >= sizing.batchBytes()
+                : bulkRequests.requestCount() > 10000;
+    }
+    private void sendConcurrently(Refresh refresh) {
+        BulkBuffer batch = bulkRequests;
+        bulkRequests = new BulkBuffer(bufferPool);
+        BulkSizing batchSizing = sizing;
+        try {
+            batchSizing.acquire();
+        } catch (InterruptedException e) {
+            batch.clear();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to send bulk batch", e);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    sendBulk(ResilientRequestFactory.repeatable(batch::writeTo), refresh);
+                } catch (RuntimeException e) {
+                    asyncFailure.compareAndSet(null, e);
+                } finally {
+                    batch.clear();
+                    batchSizing.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            batch.clear();
+            batchSizing.release();
+            throw e;
+        }
+    }
+    private void sendBulk(StreamingHttpOutputMessage.Body body, Refresh refresh) {
+        long start = System.nanoTime();
+        Map response;
+        try {
+            response = restClient.post()
+                    .uri(refresh == Refresh.FALSE ? "_bulk" : "_bulk?" + refresh.toQueryParams())
+                    .body(body)
                     .retrieve()
                     .body(Map.class);
-            bulkRequests.clear();
-            if (response.get("errors") != null && (Boolean) response.get("errors")) {
-                throw new RuntimeException("Bulk operation failed: " + response);
-            }
-            if (response == null || response.isEmpty()) {
-                throw new RuntimeException("Bulk operation failed: No response received.");
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            if (sizing != null) {
+                sizing.record((System.nanoTime() - start) / 1_000_000, 0, 1, 1);
             }
+            throw e;
+        }
+        if (response == null || response.isEmpty()) {
+            throw new RuntimeException("Bulk operation failed: No response received.");
+        }
+        if (sizing != null) {
+            long took = response.get("took") instanceof Number number ? number.longValue() : 0;
+            List<?> items = response.get("items") instanceof List<?> list ? list : List.of();
+            int rejected = (int) items.stream().filter(BulkClient::isRejected).count();
+            sizing.record((System.nanoTime() - start) / 1_000_000, took, items.size(), rejected);
         }
+        if (response.get("errors") != null && (Boolean) response.get("errors")) {
+            throw new RuntimeException("Bulk operation failed: " + response);
+        }
+    }
+    private static boolean isRejected(Object item) {
+        if (!(item instanceof Map<?, ?> action) || action.isEmpty()
+                || !(action.values().iterator().next() instanceof Map<?, ?> result)) {
+            return false;
+        }
+        return result.get("status") instanceof Number status && status.intValue() == 429
+                || result.get("error") instanceof Map<?, ?> error
+                && "es_rejected_execution_exception".equals(error.get("type"));
+    }
+    /**
+     * Sets the refresh policy of the batches sent by this client.
+     *
+     * @param refresh when the changes of a batch become visible to search
+     */
+    public void setRefresh(Refresh refresh) {
+        this.refresh = refresh;
     }
     /**
      * Sets whether bulk operations should be automatically committed after each request.
@@ -115,4 +634,25 @@ public class BulkClient {
     public void setBulkAutoCommit(boolean autoCommit) {
         bulkAutoCommit = autoCommit;
     }
+    /**
+     * Sets whether repeated requests for the same document are coalesced in the pending batch, last write wins.
+     * Documents are identified by index and {@link Id}, including its routing key.
+     * <ul>
+     *     <li>An index or delete request replaces the pending request of the document.</li>
+     *     <li>An update request is merged into a pending index request, which then indexes the merged source,
+     *     or into a pending update request, whose partial documents are merged recursively like Elasticsearch does.
+     *     An update after a pending delete is kept, so it fails like without coalescing.</li>
+     *     <li>Create requests are neither replaced nor merged into.</li>
+     * </ul>
+     * The replacing request takes the position of the latest one, all other requests keep their order.
+     * Only requests of the same pending batch are coalesced.
+     *
+     * @param coalescing true to coalesce requests per document, false to send every request
+     */
+    public void setCoalescing(boolean coalescing) {
+        this.coalescing = coalescing;
+        if (!coalescing) {
+            bulkRequests.untrackAll();
+        }
+    }
 }
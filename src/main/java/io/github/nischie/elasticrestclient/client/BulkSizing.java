@@ -0,0 +1,210 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.time.Duration;
+
+/**
+ * Adaptive controller for the size and concurrency of bulk batches.
+ * <p>
+ * Each {@code _bulk} response is fed back with its latency, the {@code took} reported by Elasticsearch
+ * and the number of items rejected because the write thread pool was full (HTTP 429 or
+ * {@code es_rejected_execution_exception}). Latency and {@code took} are smoothed with an exponentially
+ * weighted moving average, and the batch size and the number of batches in flight are tuned with an AIMD
+ * policy within the configured bounds:
+ * <ul>
+ *     <li>rejections halve the batch size and the concurrency,</li>
+ *     <li>an average latency above the target shrinks the batch size by a quarter, or the concurrency if most
+ *     of the latency was spent waiting rather than in {@code took},</li>
+ *     <li>otherwise the batch size grows by a fixed step, and the concurrency by one after a run of batches
+ *     whose average latency is well below the target.</li>
+ * </ul>
+ * At most one decrease is applied per window: the outcomes of the batches already in flight at a decrease
+ * were sized before it, so they are ignored, and the averages restart with the first batch of the new size.
+ * This keeps the throughput near the point where larger or more batches only add latency and rejections.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class BulkSizing {
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final int MIN_LATENCY_SAMPLES = 3;
+
+    private final long minBatchBytes;
+    private final long maxBatchBytes;
+    private final long increaseStepBytes;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long targetLatencyMillis;
+    private long batchBytes;
+    private int concurrency;
+    private int inFlight;
+    private int healthyBatches;
+    private int staleBatches;
+    private long samples;
+    private double latencyMillis;
+    private double tookMillis;
+    private double rejectionRate;
+
+    /**
+     * Constructs a BulkSizing starting at the minimum batch size and concurrency.
+     *
+     * @param minBatchBytes the minimum batch size in bytes, also the step of the additive increase
+     * @param maxBatchBytes the maximum batch size in bytes
+     * @param minConcurrency the minimum number of batches in flight
+     * @param maxConcurrency the maximum number of batches in flight
+     * @param targetLatency the latency of a bulk request above which batches are shrunk
+     */
+    public BulkSizing(long minBatchBytes, long maxBatchBytes, int minConcurrency, int maxConcurrency, Duration targetLatency) {
+        if (minBatchBytes <= 0 || maxBatchBytes < minBatchBytes) {
+            throw new IllegalArgumentException("Batch bytes must satisfy 0 < min <= max");
+        }
+        if (minConcurrency <= 0 || maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("Concurrency must satisfy 0 < min <= max");
+        }
+        this.minBatchBytes = minBatchBytes;
+        this.maxBatchBytes = maxBatchBytes;
+        this.increaseStepBytes = minBatchBytes;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.targetLatencyMillis = targetLatency.toMillis();
+        this.batchBytes = minBatchBytes;
+        this.concurrency = minConcurrency;
+    }
+
+    /**
+     * Creates a BulkSizing with batches between 1 MiB and 32 MiB, up to 4 batches in flight
+     * and a target latency of one second.
+     *
+     * @return a new BulkSizing
+     */
+    public static BulkSizing defaults() {
+        return new BulkSizing(1L << 20, 32L << 20, 1, 4, Duration.ofSeconds(1));
+    }
+
+    /**
+     * Returns the current batch size at which a batch is sent.
+     *
+     * @return the batch size in bytes
+     */
+    public synchronized long batchBytes() {
+        return batchBytes;
+    }
+
+    /**
+     * Returns the current number of batches allowed in flight.
+     *
+     * @return the concurrency
+     */
+    public synchronized int concurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Records the outcome of a bulk request and adjusts the batch size and concurrency.
+     *
+     * @param requestLatencyMillis the latency of the request as seen by the client
+     * @param requestTookMillis the {@code took} of the response, or 0 if the request was rejected as a whole
+     * @param items the number of items in the request
+     * @param rejectedItems the number of items rejected because the cluster was overloaded
+     */
+    public synchronized void record(long requestLatencyMillis, long requestTookMillis, int items, int rejectedItems) {
+        if (staleBatches > 0) {
+            // sent before the last decrease, so its outcome does not reflect the current size
+            staleBatches--;
+            notifyAll();
+            return;
+        }
+        double weight = samples++ == 0 ? 1 : EWMA_WEIGHT;
+        latencyMillis += weight * (requestLatencyMillis - latencyMillis);
+        tookMillis += weight * (requestTookMillis - tookMillis);
+        rejectionRate += weight * ((items == 0 ? 0 : (double) rejectedItems / items) - rejectionRate);
+        if (rejectedItems > 0) {
+            // a rejection is a loss signal, acted upon without waiting for the average
+            batchBytes = Math.max(minBatchBytes, batchBytes / 2);
+            concurrency = Math.max(minConcurrency, concurrency / 2);
+            decreased();
+        } else if (latencyMillis > targetLatencyMillis) {
+            if (samples >= MIN_LATENCY_SAMPLES) {
+                if (latencyMillis - tookMillis > tookMillis && concurrency > minConcurrency) {
+                    concurrency = Math.max(minConcurrency, concurrency * 3 / 4);
+                } else {
+                    batchBytes = Math.max(minBatchBytes, batchBytes * 3 / 4);
+                }
+                decreased();
+            }
+        } else {
+            batchBytes = Math.min(maxBatchBytes, batchBytes + increaseStepBytes);
+            if (latencyMillis < targetLatencyMillis / 2.0 && ++healthyBatches >= 4 * concurrency) {
+                concurrency = Math.min(maxConcurrency, concurrency + 1);
+                healthyBatches = 0;
+            }
+        }
+        notifyAll();
+    }
+
+    private void decreased() {
+        healthyBatches = 0;
+        // the reporting batch still holds its slot, all other slots belong to batches of the old size
+        staleBatches = Math.max(0, inFlight - 1);
+        samples = 0;
+    }
+
+    /**
+     * Waits until a batch may be sent without exceeding the current concurrency and reserves a slot for it.
+     *
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     */
+    synchronized void acquire() throws InterruptedException {
+        while (inFlight >= concurrency) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Releases the slot of a batch that has completed.
+     */
+    synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Waits until no batch is in flight.
+     *
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     */
+    synchronized void awaitIdle() throws InterruptedException {
+        while (inFlight > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Returns the current state of this controller.
+     *
+     * @return the sizing metrics
+     */
+    public synchronized Metrics metrics() {
+        return new Metrics(batchBytes, concurrency, inFlight, latencyMillis, tookMillis, rejectionRate);
+    }
+
+    /**
+     * State of a BulkSizing.
+     *
+     * @param batchBytes the current batch size in bytes
+     * @param concurrency the current number of batches allowed in flight
+     * @param inFlight the number of batches currently in flight
+     * @param latencyMillis the moving average of the request latency
+     * @param tookMillis the moving average of the {@code took} reported by Elasticsearch
+     * @param rejectionRate the moving average of the fraction of rejected items
+     */
+    public record Metrics(
+            long batchBytes,
+            int concurrency,
+            int inFlight,
+            double latencyMillis,
+            double tookMillis,
+            double rejectionRate
+    ) {
+    }
+}
@@ -0,0 +1,298 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead spool for bulk batches, so unsent batches survive cluster outages and restarts.
+ * <p>
+ * Batches are appended to memory-mapped, append-only segment files before they are sent,
+ * and marked as acknowledged once Elasticsearch has accepted them. Segments whose batches are all
+ * acknowledged are deleted. Pending batches found when the spool is opened are replayed in order.
+ * The total size of the segment files is bounded; appending beyond the bound fails.
+ * <p>
+ * Each record consists of a header (payload length, CRC32 of the payload, state) followed by the
+ * NDJSON payload. The length is written last, so a record torn by a crash is ignored on recovery.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class BulkSpool implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final int HEADER_SIZE = 9;
+    private static final int STATE_OFFSET = 8;
+    private static final byte PENDING = 0;
+    private static final byte ACKED = 1;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final long maxBytes;
+    private final boolean syncOnAppend;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private Segment active;
+    private long nextSegmentId;
+    private long pendingBytes;
+
+    private BulkSpool(Path directory, long segmentSize, long maxBytes, boolean syncOnAppend) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxBytes = maxBytes;
+        this.syncOnAppend = syncOnAppend;
+    }
+
+    /**
+     * Opens the spool in the given directory and recovers the pending batches of existing segments.
+     *
+     * @param directory the directory of the segment files, created if missing
+     * @param segmentSize the size of a segment file in bytes
+     * @param maxBytes the maximum total size of all segment files in bytes
+     * @param syncOnAppend whether to force each appended batch to disk before it is sent,
+     *                     otherwise it survives JVM crashes but not operating system crashes
+     * @return the opened spool
+     * @throws java.io.IOException if the directory or a segment cannot be read
+     */
+    public static BulkSpool open(Path directory, long segmentSize, long maxBytes, boolean syncOnAppend) throws IOException {
+        if (segmentSize <= HEADER_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between " + HEADER_SIZE + " and " + Integer.MAX_VALUE + " bytes");
+        }
+        Files.createDirectories(directory);
+        BulkSpool spool = new BulkSpool(directory, segmentSize, maxBytes, syncOnAppend);
+        spool.recover();
+        return spool;
+    }
+
+    /**
+     * Returns the number of batches that have not been acknowledged yet.
+     *
+     * @return the number of pending batches
+     */
+    public synchronized int pendingBatches() {
+        return pending.size();
+    }
+
+    /**
+     * Returns the payload size of the batches that have not been acknowledged yet.
+     *
+     * @return the pending bytes
+     */
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Returns the total size of all segment files.
+     *
+     * @return the size on disk in bytes
+     */
+    public synchronized long spoolBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.map.capacity()).sum();
+    }
+
+    /**
+     * Appends the body of a bulk batch as a pending record.
+     *
+     * @param batch the bulk batch
+     * @return the spooled entry
+     * @throws java.io.IOException if the segment cannot be written
+     * @throws java.lang.IllegalStateException if the spool is full
+     */
+    synchronized Entry append(BulkBuffer batch) throws IOException {
+        if (batch.byteSize() > Integer.MAX_VALUE - HEADER_SIZE - Integer.BYTES) {
+            throw new IllegalArgumentException("Bulk batch too large for spool: " + batch.byteSize() + " bytes");
+        }
+        int length = (int) batch.byteSize();
+        int recordSize = HEADER_SIZE + length;
+        if (active == null || active.writePosition + recordSize + Integer.BYTES > active.map.capacity()) {
+            active = newSegment(Math.max(segmentSize, recordSize + Integer.BYTES));
+        }
+        Segment segment = active;
+        int offset = segment.writePosition;
+        batch.copyTo(segment.map.slice(offset + HEADER_SIZE, length));
+        CRC32 crc = new CRC32();
+        crc.update(segment.map.slice(offset + HEADER_SIZE, length));
+        segment.map.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        segment.map.put(offset + STATE_OFFSET, PENDING);
+        segment.map.putInt(offset, length);
+        if (syncOnAppend) {
+            segment.map.force();
+        }
+        segment.writePosition += recordSize;
+        segment.pendingCount++;
+        Entry entry = new Entry(segment, offset, length);
+        pending.addLast(entry);
+        pendingBytes += length;
+        return entry;
+    }
+
+    /**
+     * Returns the oldest batch that has not been acknowledged yet.
+     *
+     * @return the oldest pending entry, or null if there is none
+     */
+    synchronized Entry peek() {
+        return pending.peekFirst();
+    }
+
+    /**
+     * Marks the given batch as acknowledged, deleting its segment if it has no more pending batches.
+     *
+     * @param entry the acknowledged entry
+     * @throws java.io.IOException if the segment cannot be deleted
+     */
+    synchronized void ack(Entry entry) throws IOException {
+        Segment segment = entry.segment();
+        segment.map.put(entry.offset() + STATE_OFFSET, ACKED);
+        pending.remove(entry);
+        pendingBytes -= entry.length();
+        if (--segment.pendingCount == 0 && segment != active) {
+            deleteSegment(segment);
+        }
+    }
+
+    /**
+     * Discards the oldest pending batch without sending it, e.g. a batch the cluster keeps rejecting,
+     * so the batches after it can be replayed.
+     *
+     * @return the NDJSON payload of the discarded batch, or null if no batch is pending
+     * @throws java.io.IOException if the segment of the batch cannot be deleted
+     */
+    public synchronized byte[] discardHead() throws IOException {
+        Entry entry = pending.peekFirst();
+        if (entry == null) {
+            return null;
+        }
+        byte[] payload = new byte[entry.length()];
+        entry.payload().get(payload);
+        ack(entry);
+        return payload;
+    }
+
+    /**
+     * Forces all segments to disk and releases the spool. Pending batches stay on disk.
+     */
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(segment -> segment.map.force());
+        segments.clear();
+        pending.clear();
+        active = null;
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            Segment segment = new Segment(id, file, map(file, Files.size(file)));
+            segments.put(id, segment);
+            scan(segment);
+            if (segment.pendingCount == 0) {
+                deleteSegment(segment);
+            }
+        }
+    }
+
+    private void scan(Segment segment) {
+        MappedByteBuffer map = segment.map;
+        int position = 0;
+        while (position + HEADER_SIZE <= map.capacity()) {
+            int length = map.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > map.capacity()) {
+                break;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(position + HEADER_SIZE, length));
+            if ((int) crc.getValue() != map.getInt(position + Integer.BYTES)) {
+                break;
+            }
+            if (map.get(position + STATE_OFFSET) == PENDING) {
+                pending.addLast(new Entry(segment, position, length));
+                pendingBytes += length;
+                segment.pendingCount++;
+            }
+            position += HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+    }
+
+    private Segment newSegment(long size) throws IOException {
+        if (active != null && active.pendingCount == 0) {
+            deleteSegment(active);
+        }
+        if (spoolBytes() + size > maxBytes) {
+            throw new IllegalStateException("Bulk spool is full: " + spoolBytes() + " of " + maxBytes + " bytes used");
+        }
+        long id = nextSegmentId++;
+        Path file = directory.resolve("%020d%s".formatted(id, SEGMENT_SUFFIX));
+        Segment segment = new Segment(id, file, map(file, size));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segments.remove(segment.id);
+        if (segment == active) {
+            active = null;
+        }
+        Files.deleteIfExists(segment.file);
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * A spooled bulk batch.
+     *
+     * @param segment the segment containing the batch
+     * @param offset the offset of the record in the segment
+     * @param length the length of the payload
+     */
+    record Entry(Segment segment, int offset, int length) {
+        /**
+         * Returns a read-only view of the NDJSON payload of this batch.
+         *
+         * @return the payload
+         */
+        ByteBuffer payload() {
+            return segment.map.slice(offset + HEADER_SIZE, length).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    static final class Segment {
+        private final long id;
+        private final Path file;
+        private final MappedByteBuffer map;
+        private int writePosition;
+        private int pendingCount;
+
+        private Segment(long id, Path file, MappedByteBuffer map) {
+            this.id = id;
+            this.file = file;
+            this.map = map;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package io.github.nischie.elasticrestclient.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Watermark;
+import io.github.nischie.elasticrestclient.domain.queries.ChangeTracking;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+import io.github.nischie.elasticrestclient.util.SourceDeserializer;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Incremental reader of the documents changed since a persisted watermark.
+ * <p>
+ * Each call to {@link #poll(Consumer)} opens a point in time on the index and pages with {@code search_after}
+ * through the documents sorting after the watermark by timestamp and tiebreaker, up to the settle lag of
+ * the {@link ChangeTracking}. The watermark is stored after each page has been handled, so reading resumes
+ * after a restart without gaps; a page whose handling was interrupted is read again.
+ * A sync cycle therefore costs work proportional to the changes, not to the index size.
+ * <p>
+ * Deleted documents cannot be found by a search and are not reported.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class ChangeReader {
+    private static final String KEEP_ALIVE = "1m";
+
+    private final RestClient restClient;
+    private final JsonCodec codec;
+    private final Index index;
+    private final ChangeTracking tracking;
+    private final WatermarkStore store;
+    private Watermark watermark;
+    private boolean loaded;
+
+    /**
+     * Constructs a ChangeReader for the given index, starting at the watermark of the store.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec      the JsonCodec to use for serialization
+     * @param index      the index to read the changes of
+     * @param tracking   the fields and settle lag identifying changed documents
+     * @param store      the store of the watermark
+     */
+    public ChangeReader(RestClient restClient, JsonCodec codec, Index index, ChangeTracking tracking, WatermarkStore store) {
+        this.restClient = restClient;
+        this.codec = codec;
+        this.index = index;
+        this.tracking = tracking;
+        this.store = store;
+    }
+
+    /**
+     * Returns the current watermark, loading it from the store on first use.
+     *
+     * @return the watermark, or null if no document has been read yet
+     */
+    public synchronized Watermark watermark() {
+        if (!loaded) {
+            try {
+                watermark = store.load();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load watermark", e);
+            }
+            loaded = true;
+        }
+        return watermark;
+    }
+
+    /**
+     * Reads all documents changed since the watermark and older than the settle lag, page by page
+     * in ascending order, and advances the watermark after each page.
+     * If the handler throws, the watermark stays before the failed page.
+     *
+     * @param handler the handler for each page of changed documents
+     * @return the number of documents read
+     */
+    public synchronized long poll(Consumer<List<ElasticDocument>> handler) {
+        Watermark start = watermark();
+        // date math is evaluated on the cluster's clock, which also sets _ingest.timestamp, not on the client's
+        String upperBound = "now-" + tracking.settleLag().toMillis() + "ms";
+        String pitId = openPointInTime();
+        long read = 0;
+        try {
+            List<Object> searchAfter = null;
+            while (true) {
+                Page page = restClient.post()
+                        .uri("/_search")
+                        .body(codec.serialize(searchBody(pitId, start, upperBound, searchAfter)))
+                        .retrieve()
+                        .body(Page.class);
+                if (page.pitId() != null) {
+                    pitId = page.pitId();
+                }
+                List<Hit> hits = page.hits() == null || page.hits().hits() == null ? List.of() : page.hits().hits();
+                if (hits.isEmpty()) {
+                    break;
+                }
+                List<ElasticDocument> documents = new ArrayList<>(hits.size());
+                for (Hit hit : hits) {
+                    documents.add(hit.toDocument());
+                }
+                handler.accept(documents);
+                Hit last = hits.get(hits.size() - 1);
+                advance(Watermark.of(((Number) last.sort().get(0)).longValue(), String.valueOf(last.sort().get(1))));
+                read += hits.size();
+                if (hits.size() < tracking.pageSize()) {
+                    break;
+                }
+                searchAfter = last.sort();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize change query", e);
+        } finally {
+            closePointInTime(pitId);
+        }
+        return read;
+    }
+
+    private void advance(Watermark next) {
+        try {
+            store.save(next);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store watermark", e);
+        }
+        watermark = next;
+    }
+
+    private Map<String, Object> searchBody(String pitId, Watermark start, String upperBound, List<Object> searchAfter) {
+        String timestamp = tracking.timestampField();
+        String tiebreaker = tracking.tiebreakerField();
+        List<Object> filters = new ArrayList<>();
+        filters.add(Map.of("range", Map.of(timestamp, Map.of("lte", upperBound, "format", "epoch_millis"))));
+        if (start != null) {
+            // (timestamp, tiebreaker) > watermark; search_after cannot be used across points in time
+            filters.add(Map.of("bool", Map.of(
+                    "should", List.of(
+                            Map.of("range", Map.of(timestamp, Map.of("gt", start.timestamp(), "format", "epoch_millis"))),
+                            Map.of("bool", Map.of("filter", List.of(
+                                    Map.of("range", Map.of(timestamp, Map.of("gte", start.timestamp(), "lte", start.timestamp(),
+                                            "format", "epoch_millis"))),
+                                    Map.of("range", Map.of(tiebreaker, Map.of("gt", start.tiebreaker()))))))),
+                    "minimum_should_match", 1)));
+        }
+        if (tracking.query() != null) {
+            filters.add(tracking.query().getQuery());
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", tracking.pageSize());
+        body.put("pit", Map.of("id", pitId, "keep_alive", KEEP_ALIVE));
+        body.put("seq_no_primary_term", true);
+        body.put("sort", List.of(
+                Map.of(timestamp, Map.of("order", "asc", "numeric_type", "date")),
+                Map.of(tiebreaker, Map.of("order", "asc"))));
+        body.put("query", Map.of("bool", Map.of("filter", filters)));
+        if (searchAfter != null) {
+            body.put("search_after", searchAfter);
+        }
+        return body;
+    }
+
+    private String openPointInTime() {
+        Map response = restClient.post()
+                .uri(index._index() + "/_pit?keep_alive=" + KEEP_ALIVE)
+                .retrieve()
+                .body(Map.class);
+        if (response == null || !(response.get("id") instanceof String id)) {
+            throw new RuntimeException("Opening point in time failed: No ID received.");
+        }
+        return id;
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            restClient.method(HttpMethod.DELETE)
+                    .uri("/_pit")
+                    .body(Map.of("id", pitId))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            // the point in time expires on its own
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Page(
+            @JsonProperty("pit_id") String pitId,
+            @JsonProperty("hits") Hits hits
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Hits(
+            @JsonProperty("hits") List<Hit> hits
+    ) {}
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record Hit(
+            @JsonProperty("_index") String index,
+            @JsonProperty("_id") String id,
+            @JsonProperty("_version") Integer version,
+            @JsonProperty("_seq_no") Long seqNo,
+            @JsonProperty("_primary_term") Long primaryTerm,
+            @JsonProperty("_routing") String routing,
+            @JsonProperty("_source") @JsonDeserialize(using = SourceDeserializer.class) Map<String, Object> source,
+            @JsonProperty("sort") List<Object> sort
+    ) {
+        ElasticDocument toDocument() {
+            return new ElasticDocument(index, id, version, null, seqNo, primaryTerm, routing, source);
+        }
+    }
+}
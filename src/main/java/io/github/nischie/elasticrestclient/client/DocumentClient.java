@@ -1,29 +1,47 @@
 package io.github.nischie.elasticrestclient.client;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonToken;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocumentSearchResult;
+import io.github.nischie.elasticrestclient.domain.documents.RawDocument;
 import io.github.nischie.elasticrestclient.domain.model.Field;
 import io.github.nischie.elasticrestclient.domain.model.Id;
 import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.domain.model.SeqNoPrimaryTerm;
 import io.github.nischie.elasticrestclient.domain.model.Value;
+import io.github.nischie.elasticrestclient.domain.queries.ByQueryOptions;
+import io.github.nischie.elasticrestclient.domain.queries.KnnQuery;
+import io.github.nischie.elasticrestclient.domain.queries.PartialUpdate;
+import io.github.nischie.elasticrestclient.domain.queries.Script;
+import io.github.nischie.elasticrestclient.domain.queries.SearchParams;
 import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
 import io.github.nischie.elasticrestclient.domain.queries.UpdateByStringQuery;
-import io.github.nischie.elasticrestclient.util.JsonUtil;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.server.ServerErrorException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Client for document operations in Elasticsearch.
  * <p>
  * Provides methods for indexing, retrieving, searching, counting, and deleting documents.
- * Uses Spring's RestClient for HTTP communication and JsonUtil for serialization.
+ * Uses Spring's RestClient for HTTP communication and JsonCodec for serialization.
  *
  * @author nschieschke
  * @version $Id: $Id
@@ -33,6 +51,10 @@ public class DocumentClient {
      * The underlying RestClient used for HTTP requests.
      */
     private final RestClient restClient;
+    private final TaskClient taskClient;
+    private final JsonCodec codec;
+    private Refresh refresh = Refresh.FALSE;
+    private SlowQueryLog slowQueryLog;
 
     /**
      * Constructs a DocumentClient with the given RestClient.
@@ -40,7 +62,52 @@ public class DocumentClient {
      * @param restClient the RestClient to use for HTTP operations
      */
     public DocumentClient(RestClient restClient) {
+        this(restClient, JsonCodec.defaultCodec());
+    }
+
+    /**
+     * Constructs a DocumentClient with the given RestClient and JsonCodec.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec the JsonCodec to use for serialization
+     */
+    public DocumentClient(RestClient restClient, JsonCodec codec) {
         this.restClient = restClient;
+        this.taskClient = new TaskClient(restClient);
+        this.codec = codec;
+    }
+
+    /**
+     * Sets the refresh policy of all write operations of this client.
+     *
+     * @param refresh when the changes of write operations become visible to search
+     */
+    public void setRefresh(Refresh refresh) {
+        this.refresh = refresh;
+    }
+
+    /**
+     * Returns a client sharing the connection of this client, whose write operations use the given refresh policy,
+     * e.g. {@code document().withRefresh(Refresh.WAIT_FOR).index(index, id, doc)} for read-after-write visibility
+     * of a single call.
+     *
+     * @param refresh when the changes of write operations become visible to search
+     * @return a new DocumentClient with the given refresh policy
+     */
+    public DocumentClient withRefresh(Refresh refresh) {
+        DocumentClient client = new DocumentClient(restClient, codec);
+        client.setRefresh(refresh);
+        client.setSlowQueryLog(slowQueryLog);
+        return client;
+    }
+
+    /**
+     * Sets a slow-query log, reporting searches and counts of this client that take longer than its threshold.
+     *
+     * @param slowQueryLog the slow-query log, or null to disable it
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
     }
 
     /**
@@ -53,13 +120,84 @@ public class DocumentClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public ResponseEntity<Map> index(Index index, Id id, Object document) throws JsonProcessingException {
-        String json = JsonUtil.serialize(document);
+        String json = codec.serialize(document);
         return restClient.put()
-                .uri(index._index() + "/_doc/" + id._id())
+                .uri(documentUri(index, "_doc", id, refresh.toQueryParams()))
                 .body(json)
                 .retrieve()
                 .toEntity(Map.class);
     }
+    /**
+     * Indexes (creates or updates) a document in the specified index with the given ID,
+     * but only if the stored document is still at the given revision.
+     * <p>
+     * If the document was changed concurrently, Elasticsearch rejects the request with
+     * 409 Conflict, which is thrown as {@link org.springframework.web.client.HttpClientErrorException.Conflict}.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param document the document object to serialize and store
+     * @param revision the expected revision, as returned by {@link ElasticDocument#seqNoPrimaryTerm()}
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> index(Index index, Id id, Object document, SeqNoPrimaryTerm revision) throws JsonProcessingException {
+        String json = codec.serialize(document);
+        return restClient.put()
+                .uri(documentUri(index, "_doc", id, revision.toQueryParams(), refresh.toQueryParams()))
+                .body(json)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+    /**
+     * Indexes (creates or updates) a pre-serialized document in the specified index with the given ID.
+     * The bytes are sent verbatim, without parsing or re-serializing them.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the UTF-8 encoded JSON document
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> index(Index index, Id id, byte[] source) {
+        return restClient.put()
+                .uri(documentUri(index, "_doc", id, refresh.toQueryParams()))
+                .body(source)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+    /**
+     * Indexes (creates or updates) a pre-serialized document in the specified index with the given ID.
+     * The bytes between the buffer's position and limit are sent verbatim, without parsing or re-serializing them.
+     * The buffer's position is not changed.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the UTF-8 encoded JSON document
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> index(Index index, Id id, ByteBuffer source) {
+        return restClient.put()
+                .uri(documentUri(index, "_doc", id, refresh.toQueryParams()))
+                .body(ResilientRequestFactory.repeatable(out -> Channels.newChannel(out).write(source.duplicate())))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+    /**
+     * Indexes (creates or updates) a pre-serialized document in the specified index with the given ID.
+     * The stream is read to its end and sent verbatim, without parsing or re-serializing it.
+     *
+     * @param index the index to store the document in
+     * @param id the document ID
+     * @param source the stream of the UTF-8 encoded JSON document
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> index(Index index, Id id, InputStream source) {
+        return restClient.put()
+                .uri(documentUri(index, "_doc", id, refresh.toQueryParams()))
+                .body(source::transferTo)
+                .retrieve()
+                .toEntity(Map.class);
+    }
     /**
      * Indexes (creates or updates) a document in the specified index without specifying an ID.
      *
@@ -69,9 +207,9 @@ public class DocumentClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public ResponseEntity<Map> index(Index index, Object document) throws JsonProcessingException {
-        String json = JsonUtil.serialize(document);
+        String json = codec.serialize(document);
         return restClient.post()
-                .uri(index._index() + "/_doc/")
+                .uri(withQueryParams(index._index() + "/_doc/", refresh.toQueryParams()))
                 .body(json)
                 .retrieve()
                 .toEntity(Map.class);
@@ -87,7 +225,7 @@ public class DocumentClient {
     public ElasticDocument getDocument(Index index, Id id) {
         try {
             return restClient.get()
-                    .uri(index._index() + "/_doc/" + id._id())
+                    .uri(documentUri(index, "_doc", id))
                     .retrieve()
                     .onStatus(HttpStatusCode::is5xxServerError, (response, status) -> {
                         throw new ServerErrorException("Server error for: " + index + "/" + id, new Throwable("Server error while retrieving document"));
@@ -103,6 +241,57 @@ public class DocumentClient {
         }
     }
 
+    /**
+     * Retrieves the source of a document from the specified index by its ID, read directly into the given type.
+     * The source is decoded by the type's {@link io.github.nischie.elasticrestclient.util.DocumentCodec}
+     * from the response bytes, without an intermediate map.
+     *
+     * @param index the index to search in
+     * @param id the document ID
+     * @param clazz the document class
+     * @param <T> the type of the document
+     * @return the document if found, or null if not found
+     */
+    public <T> T getDocument(Index index, Id id, Class<T> clazz) {
+        try {
+            byte[] source = restClient.get()
+                    .uri(documentUri(index, "_source", id))
+                    .retrieve()
+                    .body(byte[].class);
+            return codec.read(source, clazz);
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (e.getStatusCode().value() == 404) {
+                return null;
+            }
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Retrieves the raw source of a document from the specified index by its ID, without parsing it.
+     *
+     * @param index the index to search in
+     * @param id the document ID
+     * @return the UTF-8 encoded JSON source if found, or null if not found
+     */
+    public byte[] getRawSource(Index index, Id id) {
+        try {
+            return restClient.get()
+                    .uri(documentUri(index, "_source", id))
+                    .retrieve()
+                    .body(byte[].class);
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (e.getStatusCode().value() == 404) {
+                return null;
+            }
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Deletes a document from the specified index by its ID.
      *
@@ -112,7 +301,64 @@ public class DocumentClient {
      */
     public ResponseEntity<Map> delete(Index index, Id id) {
         return restClient.delete()
-                .uri(index._index() + "/_doc/" + id._id())
+                .uri(documentUri(index, "_doc", id, refresh.toQueryParams()))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Deletes a document from the specified index by its ID,
+     * but only if the stored document is still at the given revision.
+     * <p>
+     * If the document was changed concurrently, Elasticsearch rejects the request with
+     * 409 Conflict, which is thrown as {@link org.springframework.web.client.HttpClientErrorException.Conflict}.
+     *
+     * @param index the index to delete from
+     * @param id the document ID
+     * @param revision the expected revision, as returned by {@link ElasticDocument#seqNoPrimaryTerm()}
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> delete(Index index, Id id, SeqNoPrimaryTerm revision) {
+        return restClient.delete()
+                .uri(documentUri(index, "_doc", id, revision.toQueryParams(), refresh.toQueryParams()))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Partially updates a document using the Update API.
+     * <p>
+     * Only the fields of the partial document (or the effects of the script) are sent,
+     * the merge with the stored document happens in Elasticsearch.
+     *
+     * @param index the index containing the document
+     * @param id the document ID
+     * @param update the partial document, script and optional upsert document
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> update(Index index, Id id, PartialUpdate update) throws JsonProcessingException {
+        return update(index, id, update, 0);
+    }
+
+    /**
+     * Partially updates a document using the Update API.
+     * <p>
+     * Elasticsearch re-reads and re-applies the update up to {@code retryOnConflict} times
+     * if the document is changed concurrently between its get and index phase.
+     *
+     * @param index the index containing the document
+     * @param id the document ID
+     * @param update the partial document, script and optional upsert document
+     * @param retryOnConflict how often Elasticsearch retries the update on a version conflict
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> update(Index index, Id id, PartialUpdate update, int retryOnConflict) throws JsonProcessingException {
+        String json = codec.serialize(update);
+        return restClient.post()
+                .uri(documentUri(index, "_update", id, "retry_on_conflict=" + retryOnConflict, refresh.toQueryParams()))
+                .body(json)
                 .retrieve()
                 .toEntity(Map.class);
     }
@@ -127,12 +373,9 @@ public class DocumentClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public List<ElasticDocument> searchDocuments(Index index, StringSearchQuery query) throws JsonProcessingException {
-        var response = restClient.post()
-                .uri(index._index() + "/_search?size=1000")
-                .body(JsonUtil.serialize(query))
-                .retrieve()
-                .body(ElasticDocumentSearchResult.class);
-        return response.searchHits();
+        return query(index, "_search", codec.serialize(query),
+                response -> codec.deserialize(response, ElasticDocumentSearchResult.class).searchHits(),
+                "size=1000");
     }
 
     /**
@@ -146,14 +389,139 @@ public class DocumentClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public List<ElasticDocument> searchDocuments(Index index, StringSearchQuery query, Integer size) throws JsonProcessingException {
+        return searchDocuments(index, query, size, SearchParams.none());
+    }
+
+    /**
+     * Searches for documents in the specified index using a StringSearchQuery,
+     * only on the shards selected by the given routing and preference.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param size the maximum search result size
+     * @param params the routing keys and shard copy preference
+     * @return a list of ElasticDocument search hits
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public List<ElasticDocument> searchDocuments(Index index, StringSearchQuery query, Integer size, SearchParams params) throws JsonProcessingException {
+        return query(index, "_search", codec.serialize(query),
+                response -> codec.deserialize(response, ElasticDocumentSearchResult.class).searchHits(),
+                "size=" + size, params.toQueryParams());
+    }
+
+    /**
+     * Searches for documents in the specified index using a StringSearchQuery,
+     * reading the source of each hit directly into the given type.
+     * The sources are decoded by the type's {@link io.github.nischie.elasticrestclient.util.DocumentCodec}
+     * while streaming through the response, without intermediate maps.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param size the maximum search result size
+     * @param clazz the document class
+     * @param <T> the type of the documents
+     * @return a list of the search hit sources
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> List<T> searchDocuments(Index index, StringSearchQuery query, Integer size, Class<T> clazz) throws JsonProcessingException {
+        return searchDocuments(index, query, size, clazz, SearchParams.none());
+    }
+
+    /**
+     * Searches for documents in the specified index using a StringSearchQuery,
+     * only on the shards selected by the given routing and preference,
+     * reading the source of each hit directly into the given type.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param size the maximum search result size
+     * @param clazz the document class
+     * @param params the routing keys and shard copy preference
+     * @param <T> the type of the documents
+     * @return a list of the search hit sources
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> List<T> searchDocuments(Index index, StringSearchQuery query, Integer size, Class<T> clazz, SearchParams params) throws JsonProcessingException {
+        return query(index, "_search", codec.serialize(query), response -> codec.readSearchHits(response, clazz),
+                "size=" + size, params.toQueryParams());
+    }
+
+    /**
+     * Searches for the approximate k nearest neighbors of a vector in a {@code dense_vector} field,
+     * using the top-level {@code knn} section of a search request. The hits are ordered by similarity.
+     *
+     * @param index the index to search in
+     * @param query the kNN query
+     * @return a list of the k nearest ElasticDocument search hits
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public List<ElasticDocument> knnSearch(Index index, KnnQuery query) throws JsonProcessingException {
         var response = restClient.post()
-                .uri(index._index() + "/_search?size="+size)
-                .body(JsonUtil.serialize(query))
+                .uri(index._index() + "/_search")
+                .body(codec.serialize(Map.of("knn", query, "size", query.k())))
                 .retrieve()
                 .body(ElasticDocumentSearchResult.class);
         return response.searchHits();
     }
 
+    /**
+     * Searches for the approximate k nearest neighbors of a vector in a {@code dense_vector} field,
+     * reading the source of each hit directly into the given type. {@code float[]} properties of the type
+     * are read without boxing.
+     *
+     * @param index the index to search in
+     * @param query the kNN query
+     * @param clazz the document class
+     * @param <T> the type of the documents
+     * @return a list of the sources of the k nearest hits, ordered by similarity
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public <T> List<T> knnSearch(Index index, KnnQuery query, Class<T> clazz) throws JsonProcessingException {
+        byte[] response = restClient.post()
+                .uri(index._index() + "/_search")
+                .body(codec.serialize(Map.of("knn", query, "size", query.k())))
+                .retrieve()
+                .body(byte[].class);
+        try {
+            return codec.readSearchHits(response, clazz);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Searches for documents in the specified index using a StringSearchQuery,
+     * returning the raw source bytes of each hit without parsing them.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param size the maximum search result size
+     * @return a list of the raw search hits
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public List<RawDocument> searchRawDocuments(Index index, StringSearchQuery query, Integer size) throws JsonProcessingException {
+        return searchRawDocuments(index, query, size, SearchParams.none());
+    }
+
+    /**
+     * Searches for documents in the specified index using a StringSearchQuery,
+     * only on the shards selected by the given routing and preference,
+     * returning the raw source bytes of each hit without parsing them.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param size the maximum search result size
+     * @param params the routing keys and shard copy preference
+     * @return a list of the raw search hits
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public List<RawDocument> searchRawDocuments(Index index, StringSearchQuery query, Integer size, SearchParams params) throws JsonProcessingException {
+        return query(index, "_search", codec.serialize(query), codec::readRawSearchHits,
+                "size=" + size, params.toQueryParams());
+    }
+
     /**
      * Deletes documents from the specified index that match the given query.
      *
@@ -163,23 +531,168 @@ public class DocumentClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public ResponseEntity<Map> deleteByStringQuery(Index index, StringSearchQuery query) throws JsonProcessingException {
-            String queryBody = JsonUtil.serialize(query);
+            String queryBody = codec.serialize(query);
             return restClient.post()
-                    .uri(index._index() + "/_delete_by_query")
+                    .uri(withQueryParams(index._index() + "/_delete_by_query", byQueryRefresh()))
                     .body(queryBody)
                     .retrieve()
                     .toEntity(Map.class);
     }
 
+    /**
+     * Deletes documents from the specified index that match the given query,
+     * using the given slicing, throttling and conflict options.
+     *
+     * @param index the index to delete from
+     * @param query the match query
+     * @param options the execution options of the delete-by-query request
+     * @return the response entity of the rest request, containing only the task ID if not waiting for completion
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> deleteByStringQuery(Index index, StringSearchQuery query, ByQueryOptions options) throws JsonProcessingException {
+        String queryBody = codec.serialize(query);
+        return restClient.post()
+                .uri(withQueryParams(index._index() + "/_delete_by_query", options.toQueryParams(), byQueryRefresh()))
+                .body(queryBody)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Starts deleting documents from the specified index that match the given query as a background task.
+     * The call returns immediately, the returned handle allows polling, rethrottling and cancelling the task.
+     *
+     * @param index the index to delete from
+     * @param query the match query
+     * @param options the execution options of the delete-by-query request
+     * @return a handle for the started task
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public TaskHandle deleteByStringQueryAsync(Index index, StringSearchQuery query, ByQueryOptions options) throws JsonProcessingException {
+        var response = deleteByStringQuery(index, query, options.async());
+        return taskClient.handle("_delete_by_query", response.getBody());
+    }
+
+    /**
+     * Sets a field to the given value on all documents in the specified index that match the given query.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param field the field to set
+     * @param value the value to set
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
     public ResponseEntity<Map> updateByStringQuery(Index index, StringSearchQuery query, Field field, Value value) throws JsonProcessingException {
-        String queryBody = JsonUtil.serialize(UpdateByStringQuery.of(query, field, value));
+        return updateByStringQuery(index, UpdateByStringQuery.of(query, field, value));
+    }
+
+    /**
+     * Sets all given fields to their values on all documents in the specified index that match the given query.
+     * The values are passed as script parameters, so the same compiled script is reused for every call.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param assignments the fields to set and their values
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> updateByStringQuery(Index index, StringSearchQuery query, Map<Field, Value> assignments) throws JsonProcessingException {
+        return updateByStringQuery(index, UpdateByStringQuery.of(query, assignments));
+    }
+
+    /**
+     * Applies an inline or stored script to all documents in the specified index that match the given query.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param script the script to apply
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> updateByStringQuery(Index index, StringSearchQuery query, Script script) throws JsonProcessingException {
+        return updateByStringQuery(index, UpdateByStringQuery.of(query, script));
+    }
+
+    /**
+     * Sets all given fields to their values on all documents in the specified index that match the given query,
+     * using the given slicing, throttling and conflict options.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param assignments the fields to set and their values
+     * @param options the execution options of the update-by-query request
+     * @return the response entity of the rest request, containing only the task ID if not waiting for completion
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> updateByStringQuery(Index index, StringSearchQuery query, Map<Field, Value> assignments, ByQueryOptions options) throws JsonProcessingException {
+        return updateByStringQuery(index, UpdateByStringQuery.of(query, assignments), options);
+    }
+
+    /**
+     * Starts setting all given fields to their values on all documents in the specified index that match
+     * the given query as a background task.
+     * The call returns immediately, the returned handle allows polling, rethrottling and cancelling the task.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param assignments the fields to set and their values
+     * @param options the execution options of the update-by-query request
+     * @return a handle for the started task
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public TaskHandle updateByStringQueryAsync(Index index, StringSearchQuery query, Map<Field, Value> assignments, ByQueryOptions options) throws JsonProcessingException {
+        var response = updateByStringQuery(index, UpdateByStringQuery.of(query, assignments), options.async());
+        return taskClient.handle("_update_by_query", response.getBody());
+    }
+
+    /**
+     * Starts applying an inline or stored script to all documents in the specified index that match
+     * the given query as a background task.
+     * The call returns immediately, the returned handle allows polling, rethrottling and cancelling the task.
+     *
+     * @param index the index to update in
+     * @param query the match query
+     * @param script the script to apply
+     * @param options the execution options of the update-by-query request
+     * @return a handle for the started task
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public TaskHandle updateByStringQueryAsync(Index index, StringSearchQuery query, Script script, ByQueryOptions options) throws JsonProcessingException {
+        var response = updateByStringQuery(index, UpdateByStringQuery.of(query, script), options.async());
+        return taskClient.handle("_update_by_query", response.getBody());
+    }
+
+    private ResponseEntity<Map> updateByStringQuery(Index index, UpdateByStringQuery updateByQuery) throws JsonProcessingException {
+        return updateByStringQuery(index, updateByQuery, ByQueryOptions.defaults());
+    }
+
+    private ResponseEntity<Map> updateByStringQuery(Index index, UpdateByStringQuery updateByQuery, ByQueryOptions options) throws JsonProcessingException {
+        String queryBody = codec.serialize(updateByQuery);
         return restClient.post()
-                .uri(index._index() + "/_update_by_query")
+                .uri(withQueryParams(index._index() + "/_update_by_query", options.toQueryParams(), byQueryRefresh()))
                 .body(queryBody)
                 .retrieve()
                 .toEntity(Map.class);
     }
 
+    /**
+     * Stores a script in the cluster state, so it can be referenced by id with {@link Script#stored(String, Map)}.
+     *
+     * @param id the id of the stored script
+     * @param script the inline script to store
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> putStoredScript(String id, Script script) throws JsonProcessingException {
+        String body = codec.serialize(Map.of("script", Map.of("lang", script.lang(), "source", script.source())));
+        return restClient.put()
+                .uri("_scripts/" + id)
+                .body(body)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
     /**
      * Counts the number of documents in the specified index that match the given query.
      *
@@ -188,18 +701,135 @@ public class DocumentClient {
      * @return the count of matching documents, or null if an error occurs
      */
     public Long countByQuery(Index index, StringSearchQuery query) {
+        return countByQuery(index, query, SearchParams.none());
+    }
+
+    /**
+     * Counts the number of documents in the specified index that match the given query,
+     * only on the shards selected by the given routing and preference.
+     *
+     * @param index the index to count in
+     * @param query the match query
+     * @param params the routing keys and shard copy preference
+     * @return the count of matching documents, or null if an error occurs
+     */
+    public Long countByQuery(Index index, StringSearchQuery query, SearchParams params) {
         try {
-            String queryBody = JsonUtil.serialize(query);
-            var response = new ObjectNode(restClient
-                    .post()
-                    .uri(index._index() + "/_count")
-                    .body(queryBody)
-                    .retrieve()
-                    .body(com.fasterxml.jackson.databind.node.JsonNodeFactory.class));
-            return response.get("count").asLong();
+            String queryBody = codec.serialize(query);
+            Map<?, ?> response = query(index, "_count", queryBody, body -> codec.deserialize(body, Map.class),
+                    params.toQueryParams());
+            return ((Number) response.get("count")).longValue();
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Sends a search or count and parses its response, reporting the call to the slow-query log if it is too slow.
+     */
+    private <R> R query(Index index, String endpoint, String body, ResponseReader<R> reader, String... params)
+            throws JsonProcessingException {
+        SlowQueryLog log = slowQueryLog;
+        long start = System.nanoTime();
+        byte[] response = restClient.post()
+                .uri(withQueryParams(index._index() + "/" + endpoint, params))
+                .body(body)
+                .retrieve()
+                .body(byte[].class);
+        long received = System.nanoTime();
+        R result;
+        try {
+            result = reader.read(response);
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long parsed = System.nanoTime();
+        if (log != null && parsed - start > log.threshold().toNanos()) {
+            report(log, new SlowQueryLog.Entry(endpoint, index, body, took(response),
+                    Duration.ofNanos(received - start), response.length, Duration.ofNanos(parsed - received),
+                    log.profile() ? profile(index, endpoint, body, params) : null));
+        }
+        return result;
+    }
+
+    /**
+     * Passes an entry to the listener of the slow-query log. Reporting is best-effort,
+     * so a failing listener does not fail the query it reports.
+     */
+    private static void report(SlowQueryLog log, SlowQueryLog.Entry entry) {
+        try {
+            log.listener().accept(entry);
+        } catch (RuntimeException e) {
+            // the query succeeded, its result is returned regardless
+        }
+    }
+
+    private Long took(byte[] response) {
+        try (JsonParser parser = codec.objectMapper().getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (field.equals("took")) {
+                    return parser.getValueAsLong();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the query again as a profiled search; a count is profiled as a search without hits.
+     * Profiling is best-effort, so a failure only leaves the profile out of the slow-query entry.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> profile(Index index, String endpoint, String body, String... params) {
+        try {
+            Map<String, Object> profiled = codec.deserialize(body.getBytes(StandardCharsets.UTF_8), Map.class);
+            profiled.put("profile", true);
+            if (endpoint.equals("_count")) {
+                profiled.put("size", 0);
+            }
+            Map<String, Object> response = restClient.post()
+                    .uri(withQueryParams(index._index() + "/_search", params))
+                    .body(codec.serialize(profiled))
+                    .retrieve()
+                    .body(Map.class);
+            Map<String, Object> profile = (Map<String, Object>) response.get("profile");
+            return profile == null ? null : (List<Map<String, Object>>) profile.get("shards");
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseReader<R> {
+        R read(byte[] response) throws IOException;
+    }
+
+    /**
+     * By-query operations do not support {@code wait_for}, so it is mapped to an immediate refresh.
+     */
+    private String byQueryRefresh() {
+        return refresh == Refresh.FALSE ? "" : Refresh.TRUE.toQueryParams();
+    }
+
+    private static String documentUri(Index index, String endpoint, Id id, String... params) {
+        String[] allParams = Arrays.copyOf(params, params.length + 1);
+        allParams[params.length] = id.toQueryParams();
+        return withQueryParams(index._index() + "/" + endpoint + "/" + id._id(), allParams);
+    }
+
+    private static String withQueryParams(String path, String... params) {
+        String query = Arrays.stream(params).filter(param -> !param.isEmpty()).collect(Collectors.joining("&"));
+        return query.isEmpty() ? path : path + "?" + query;
+    }
+
 }
@@ -0,0 +1,575 @@
+package io.github.nischie.elasticrestclient.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+import io.github.nischie.elasticrestclient.util.SearchHitReader;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.web.client.RestClient;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Client for dumping indices to compressed NDJSON files and restoring them.
+ * <p>
+ * A dump reads the index with a sliced scroll and writes each slice on its own thread into segment files.
+ * The sources of the hits are copied as raw bytes from the search responses, preceded by an {@code index}
+ * action with their ID and routing, so each segment is a ready-made {@code _bulk} body without index names.
+ * A restore memory-maps the segment files and sends them in batches to the {@code _bulk} endpoint of the
+ * target index, cutting the batches at document boundaries without mapping any document to an object.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class DumpClient {
+    private static final int RESTORE_BATCH_BYTES = 8 << 20;
+    private static final int WRITE_BUFFER_BYTES = 64 << 10;
+    /** The name of a segment file without extension, {@code <index>-<slice>-<segment>}. */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("[A-Za-z0-9._-]+-\\d+-\\d{5,}");
+
+    private final RestClient restClient;
+    private final JsonCodec codec;
+
+    /**
+     * Constructs a DumpClient with the given RestClient and JsonCodec.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec the JsonCodec whose JSON factory is used to read search responses
+     */
+    public DumpClient(RestClient restClient, JsonCodec codec) {
+        this.restClient = restClient;
+        this.codec = codec;
+    }
+
+    /**
+     * Result of a dump.
+     *
+     * @param segments the segment files written, sorted by name
+     * @param documents the number of documents dumped
+     * @param bytes the uncompressed size of the segments in bytes
+     */
+    public record DumpResult(List<Path> segments, long documents, long bytes) {}
+
+    /**
+     * Result of a restore.
+     *
+     * @param segments the number of segment files restored
+     * @param documents the number of documents restored
+     * @param batches the number of bulk requests sent
+     */
+    public record RestoreResult(int segments, long documents, int batches) {}
+
+    /**
+     * Dumps all documents of an index into GZIP compressed segment files, using the default options.
+     *
+     * @param index the index to dump
+     * @param directory the directory to write the segment files to, created if it does not exist
+     * @return the result of the dump
+     */
+    public DumpResult dump(Index index, Path directory) {
+        return dump(index, directory, DumpOptions.defaults());
+    }
+
+    /**
+     * Dumps the documents of an index into segment files, reading and writing the slices in parallel.
+     * The segment files of slice {@code n} are named {@code <index>-<n>-<segment><extension>}.
+     *
+     * @param index the index to dump
+     * @param directory the directory to write the segment files to, created if it does not exist
+     * @param options the slices, page size, segment size, compression and query of the dump
+     * @return the result of the dump
+     */
+    public DumpResult dump(Index index, Path directory, DumpOptions options) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create dump directory " + directory, e);
+        }
+        List<Callable<DumpResult>> slices = new ArrayList<>();
+        for (int slice = 0; slice < options.slices(); slice++) {
+            int id = slice;
+            slices.add(() -> dumpSlice(index, directory, options, id));
+        }
+        List<Path> segments = new ArrayList<>();
+        long documents = 0;
+        long bytes = 0;
+        for (DumpResult result : runAll(slices, options.slices(), "dump")) {
+            segments.addAll(result.segments());
+            documents += result.documents();
+            bytes += result.bytes();
+        }
+        segments.sort(null);
+        return new DumpResult(List.copyOf(segments), documents, bytes);
+    }
+
+    /**
+     * Restores all segment files of a directory into the target index, restoring up to 4 segments in parallel.
+     *
+     * @param directory the directory containing the segment files
+     * @param target the index to restore the documents into
+     * @return the result of the restore
+     */
+    public RestoreResult restore(Path directory, Index target) {
+        return restore(directory, target, 4);
+    }
+
+    /**
+     * Restores all segment files of a directory into the target index. Segment files are the files named like
+     * the segments of a dump, {@code <index>-<slice>-<segment><extension>}; other files are ignored. The compression
+     * of each segment is taken from its file extension. Documents keep their IDs and routing; the target index
+     * is not refreshed.
+     *
+     * @param directory the directory containing the segment files
+     * @param target the index to restore the documents into
+     * @param parallelism the maximum number of segments restored in parallel
+     * @return the result of the restore
+     */
+    public RestoreResult restore(Path directory, Index target, int parallelism) {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files
+                    .filter(DumpClient::isSegment)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list dump directory " + directory, e);
+        }
+        List<Callable<RestoreResult>> restores = new ArrayList<>();
+        for (Path segment : segments) {
+            restores.add(() -> restoreSegment(segment, target));
+        }
+        long documents = 0;
+        int batches = 0;
+        for (RestoreResult result : runAll(restores, parallelism, "restore")) {
+            documents += result.documents();
+            batches += result.batches();
+        }
+        return new RestoreResult(segments.size(), documents, batches);
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        DumpOptions.Compression compression = DumpOptions.Compression.ofFileName(name);
+        return compression != null
+                && SEGMENT_NAME.matcher(name.substring(0, name.length() - compression.extension().length())).matches();
+    }
+
+    private DumpResult dumpSlice(Index index, Path directory, DumpOptions options, int slice) throws IOException {
+        String prefix = index._index().replaceAll("[^A-Za-z0-9._-]", "_") + "-" + slice;
+        String scrollId = null;
+        try (SegmentWriter writer = new SegmentWriter(directory, prefix, options)) {
+            byte[] response = restClient.post()
+                    .uri(index._index() + "/_search?scroll=1m&size=" + options.pageSize())
+                    .body(searchBody(options, slice))
+                    .retrieve()
+                    .body(byte[].class);
+            while (response != null) {
+                SearchHitReader.Summary summary = writer.writeHits(response);
+                scrollId = summary.scrollId();
+                if (scrollId == null || summary.hitCount() < options.pageSize()) {
+                    break;
+                }
+                response = restClient.post()
+                        .uri("/_search/scroll")
+                        .body(Map.of("scroll", "1m", "scroll_id", scrollId))
+                        .retrieve()
+                        .body(byte[].class);
+            }
+            return writer.finish();
+        } finally {
+            clearScroll(scrollId);
+        }
+    }
+
+    private String searchBody(DumpOptions options, int slice) throws IOException {
+        String query = options.query() == null
+                ? "{\"match_all\": {}}"
+                : codec.serialize(options.query().getQuery());
+        String sliceClause = options.slices() > 1
+                ? "\"slice\": {\"id\": %d, \"max\": %d}, ".formatted(slice, options.slices())
+                : "";
+        return "{" + sliceClause + "\"sort\": [\"_doc\"], \"query\": " + query + "}";
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            restClient.method(HttpMethod.DELETE)
+                    .uri("/_search/scroll")
+                    .body(Map.of("scroll_id", scrollId))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            // the scroll context expires on its own
+        }
+    }
+
+    private RestoreResult restoreSegment(Path segment, Index target) throws IOException {
+        DumpOptions.Compression compression = DumpOptions.Compression.ofFileName(segment.getFileName().toString());
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                try (InputStream in = decompress(Channels.newInputStream(channel), compression)) {
+                    return restoreStream(in, target);
+                }
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (compression == DumpOptions.Compression.NONE) {
+                return restoreMapped(mapped, target);
+            }
+            try (InputStream in = decompress(new ByteBufferInputStream(mapped), compression)) {
+                return restoreStream(in, target);
+            }
+        }
+    }
+
+    private RestoreResult restoreMapped(ByteBuffer segment, Index target) {
+        long documents = 0;
+        int batches = 0;
+        int start = 0;
+        int lines = 0;
+        int limit = segment.limit();
+        for (int i = 0; i < limit; i++) {
+            if (segment.get(i) == '\n' && ++lines % 2 == 0 && i + 1 - start >= RESTORE_BATCH_BYTES) {
+                ByteBuffer batch = segment.slice(start, i + 1 - start);
+                sendBulk(target, out -> Channels.newChannel(out).write(batch.duplicate()));
+                documents += lines / 2;
+                batches++;
+                start = i + 1;
+                lines = 0;
+            }
+        }
+        if (start < limit) {
+            ByteBuffer batch = segment.slice(start, limit - start);
+            sendBulk(target, out -> Channels.newChannel(out).write(batch.duplicate()));
+            documents += (lines + 1) / 2;
+            batches++;
+        }
+        return new RestoreResult(1, documents, batches);
+    }
+
+    private RestoreResult restoreStream(InputStream in, Index target) throws IOException {
+        long documents = 0;
+        int batches = 0;
+        byte[] buffer = new byte[RESTORE_BATCH_BYTES + (1 << 20)];
+        int length = 0;
+        int lines = 0;
+        int boundary = 0;
+        int boundaryLines = 0;
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+            for (int i = length; i < length + read; i++) {
+                if (buffer[i] == '\n' && ++lines % 2 == 0) {
+                    boundary = i + 1;
+                    boundaryLines = lines;
+                }
+            }
+            length += read;
+            if (boundary >= RESTORE_BATCH_BYTES || length == buffer.length) {
+                if (boundary == 0) {
+                    // a single document larger than the buffer
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    continue;
+                }
+                byte[] batch = buffer;
+                int batchLength = boundary;
+                sendBulk(target, out -> out.write(batch, 0, batchLength));
+                documents += boundaryLines / 2;
+                batches++;
+                System.arraycopy(buffer, boundary, buffer, 0, length - boundary);
+                length -= boundary;
+                lines -= boundaryLines;
+                boundary = 0;
+                boundaryLines = 0;
+            }
+        }
+        if (length > 0) {
+            byte[] batch = buffer;
+            int batchLength = length;
+            sendBulk(target, out -> out.write(batch, 0, batchLength));
+            documents += (lines + 1) / 2;
+            batches++;
+        }
+        return new RestoreResult(1, documents, batches);
+    }
+
+    private void sendBulk(Index target, StreamingHttpOutputMessage.Body body) {
+        Map response = restClient.post()
+                .uri(target._index() + "/_bulk")
+                .body(ResilientRequestFactory.repeatable(body))
+                .retrieve()
+                .body(Map.class);
+        if (response == null || response.isEmpty()) {
+            throw new RuntimeException("Restore failed: No response received.");
+        }
+        if (response.get("errors") != null && (Boolean) response.get("errors")) {
+            throw new RuntimeException("Restore failed: " + response);
+        }
+    }
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks, int parallelism, String name) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, tasks.size())), task -> {
+            Thread thread = new Thread(task, "elastic-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during " + name, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof IOException ioException) {
+                throw new UncheckedIOException("Failed to " + name + " index", ioException);
+            }
+            throw new RuntimeException("Failed to " + name + " index", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OutputStream compress(OutputStream out, DumpOptions.Compression compression) throws IOException {
+        return switch (compression) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, WRITE_BUFFER_BYTES);
+            case ZSTD -> zstd("com.github.luben.zstd.ZstdOutputStream", OutputStream.class, out);
+        };
+    }
+
+    private static InputStream decompress(InputStream in, DumpOptions.Compression compression) throws IOException {
+        return switch (compression) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, WRITE_BUFFER_BYTES);
+            case ZSTD -> zstd("com.github.luben.zstd.ZstdInputStream", InputStream.class, in);
+        };
+    }
+
+    private static <S> S zstd(String className, Class<S> type, S stream) throws IOException {
+        try {
+            return type.cast(Class.forName(className).getConstructor(type).newInstance(stream));
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IllegalStateException("Failed to create " + className, e.getCause());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("ZSTD compression requires com.github.luben:zstd-jni on the classpath", e);
+        }
+    }
+
+    /**
+     * Writes the hits of one slice into segment files, rolling over to a new file at the segment size.
+     */
+    private class SegmentWriter implements Closeable {
+        private final JsonFactory factory = codec.objectMapper().getFactory();
+        private final Path directory;
+        private final String prefix;
+        private final DumpOptions options;
+        private final List<Path> segments = new ArrayList<>();
+        private OutputStream out;
+        private long segmentBytes;
+        private long documents;
+        private long bytes;
+
+        SegmentWriter(Path directory, String prefix, DumpOptions options) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.options = options;
+        }
+
+        SearchHitReader.Summary writeHits(byte[] response) throws IOException {
+            long before = documents;
+            SearchHitReader.Summary summary;
+            try (JsonParser parser = factory.createParser(response)) {
+                summary = SearchHitReader.read(parser, (index, id, routing, sourceParser) -> {
+                    int start = (int) sourceParser.currentTokenLocation().getByteOffset();
+                    sourceParser.skipChildren();
+                    int end = (int) sourceParser.currentLocation().getByteOffset();
+                    write(id, routing, response, start, end);
+                });
+            }
+            long withoutSource = summary.hitCount() - (documents - before);
+            if (withoutSource > 0) {
+                // a dump without these documents would look complete, so it fails instead
+                throw new IOException(withoutSource + " hits of " + prefix + " have no _source and cannot be dumped");
+            }
+            return summary;
+        }
+
+        private void write(String id, String routing, byte[] response, int start, int end) throws IOException {
+            if (out == null || segmentBytes >= options.segmentBytes()) {
+                nextSegment();
+            }
+            byte[] action = action(id, routing);
+            out.write(action);
+            long written = action.length + 1;
+            if (containsLineBreak(response, start, end)) {
+                // sources indexed with line breaks are copied token by token to stay on one line
+                CountingOutputStream counting = new CountingOutputStream(out);
+                try (JsonParser source = factory.createParser(response, start, end - start);
+                     JsonGenerator generator = factory.createGenerator(counting)) {
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    source.nextToken();
+                    generator.copyCurrentStructure(source);
+                }
+                written += counting.count;
+            } else {
+                out.write(response, start, end - start);
+                written += end - start;
+            }
+            out.write('\n');
+            segmentBytes += written;
+            bytes += written;
+            documents++;
+        }
+
+        private byte[] action(String id, String routing) {
+            JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+            StringBuilder action = new StringBuilder("{\"index\":{\"_id\":\"");
+            encoder.quoteAsString(id, action);
+            action.append('"');
+            if (routing != null) {
+                action.append(",\"routing\":\"");
+                encoder.quoteAsString(routing, action);
+                action.append('"');
+            }
+            return action.append("}}\n").toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private void nextSegment() throws IOException {
+            close();
+            Path segment = directory.resolve("%s-%05d%s".formatted(prefix, segments.size(), options.compression().extension()));
+            OutputStream file = Files.newOutputStream(segment);
+            try {
+                out = new BufferedOutputStream(compress(file, options.compression()), WRITE_BUFFER_BYTES);
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                Files.deleteIfExists(segment);
+                throw e;
+            }
+            segments.add(segment);
+            segmentBytes = 0;
+        }
+
+        /**
+         * Closes the current segment file and returns the result of the slice.
+         */
+        DumpResult finish() throws IOException {
+            close();
+            return new DumpResult(List.copyOf(segments), documents, bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+    }
+
+    private static boolean containsLineBreak(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+
+/**
+ * Represents the options of an index dump written by {@link DumpClient}.
+ * <p>
+ * The index is read with a sliced scroll, one writer thread per slice, and each writer rolls over to a new
+ * segment file once the uncompressed size of its current segment exceeds the segment size.
+ *
+ * @param slices       the number of slices read and written in parallel
+ * @param pageSize     the number of hits per scroll page and slice
+ * @param segmentBytes the uncompressed size in bytes after which a writer starts a new segment file
+ * @param compression  the compression of the segment files
+ * @param query        the query selecting the documents to dump, or null to dump all documents
+ */
+public record DumpOptions(
+        int slices,
+        int pageSize,
+        long segmentBytes,
+        Compression compression,
+        StringSearchQuery query
+) {
+    /**
+     * Compression of dump segment files.
+     */
+    public enum Compression {
+        /** Uncompressed NDJSON, restored straight from the memory-mapped file. */
+        NONE(".ndjson"),
+        /** GZIP compressed NDJSON. */
+        GZIP(".ndjson.gz"),
+        /** Zstandard compressed NDJSON, requires {@code com.github.luben:zstd-jni} on the classpath. */
+        ZSTD(".ndjson.zst");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the file extension of segment files with this compression.
+         *
+         * @return the file extension, including the leading dot
+         */
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * Returns the compression of a segment file by its name.
+         *
+         * @param fileName the name of the segment file
+         * @return the compression, or null if the file is not a segment file
+         */
+        public static Compression ofFileName(String fileName) {
+            for (Compression compression : values()) {
+                if (fileName.endsWith(compression.extension)) {
+                    return compression;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns the default options: 4 slices, pages of 1,000 hits, segments of 256 MiB and GZIP compression
+     * of all documents.
+     *
+     * @return the default DumpOptions
+     */
+    public static DumpOptions defaults() {
+        return new DumpOptions(4, 1000, 256L << 20, Compression.GZIP, null);
+    }
+
+    /**
+     * Returns a copy of these options with the given number of slices.
+     *
+     * @param slices the number of slices read and written in parallel
+     * @return a new DumpOptions instance
+     */
+    public DumpOptions slices(int slices) {
+        return new DumpOptions(slices, pageSize, segmentBytes, compression, query);
+    }
+
+    /**
+     * Returns a copy of these options with the given page size.
+     *
+     * @param pageSize the number of hits per scroll page and slice
+     * @return a new DumpOptions instance
+     */
+    public DumpOptions pageSize(int pageSize) {
+        return new DumpOptions(slices, pageSize, segmentBytes, compression, query);
+    }
+
+    /**
+     * Returns a copy of these options with the given segment size.
+     *
+     * @param segmentBytes the uncompressed size in bytes after which a new segment file is started
+     * @return a new DumpOptions instance
+     */
+    public DumpOptions segmentBytes(long segmentBytes) {
+        return new DumpOptions(slices, pageSize, segmentBytes, compression, query);
+    }
+
+    /**
+     * Returns a copy of these options with the given compression.
+     *
+     * @param compression the compression of the segment files
+     * @return a new DumpOptions instance
+     */
+    public DumpOptions compression(Compression compression) {
+        return new DumpOptions(slices, pageSize, segmentBytes, compression, query);
+    }
+
+    /**
+     * Returns a copy of these options dumping only the documents matching the given query.
+     *
+     * @param query the query selecting the documents to dump
+     * @return a new DumpOptions instance
+     */
+    public DumpOptions query(StringSearchQuery query) {
+        return new DumpOptions(slices, pageSize, segmentBytes, compression, query);
+    }
+}
@@ -2,24 +2,44 @@ package io.github.nischie.elasticrestclient.client;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.queries.ChangeTracking;
+import io.github.nischie.elasticrestclient.domain.queries.SearchParams;
 import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * Main client for interacting with Elasticsearch.
  * <p>
  * Provides access to document, index, and bulk operations via sub-clients.
  * Handles authentication and configuration of the underlying RestClient.
+ * A client with a resilience policy runs its attempts on its own threads, so it should be closed when no longer used.
  *
  * @author nschieschke
  * @version $Id: $Id
  */
-public class ElasticRestClient {
+public class ElasticRestClient implements AutoCloseable {
     private final RestClient restClient;
+    private final ResilientRequestFactory requestFactory;
+    private final JsonCodec codec;
     private final IndexClient indexClient;
     private final BulkClient bulkClient;
     private final DocumentClient documentClient;
+    private final TaskClient taskClient;
+    private final DumpClient dumpClient;
+    private final EsqlClient esqlClient;
+    private final AsyncSearchClient asyncSearchClient;
+    private final int nodeCount;
 
     /**
      * Constructs an ElasticRestClient with the given host, username, and password.
@@ -29,19 +49,59 @@ public class ElasticRestClient {
      * @param password the password for authentication
      */
     public ElasticRestClient(String host, String username, String password) {
-        String baseUrl = host +"/";
+        this(host, username, password, JsonCodec.defaultCodec());
+    }
+
+    /**
+     * Constructs an ElasticRestClient with the given host, username, password and JsonCodec.
+     * The codec is used for all request bodies and is registered with the RestClient for response bodies.
+     *
+     * @param host the Elasticsearch host URL
+     * @param username the username for authentication
+     * @param password the password for authentication
+     * @param codec the JsonCodec to use for serialization and deserialization
+     */
+    public ElasticRestClient(String host, String username, String password, JsonCodec codec) {
+        this(List.of(host), username, password, codec, null);
+    }
+
+    /**
+     * Constructs an ElasticRestClient for the given nodes with a resilience policy.
+     * Requests are distributed over the nodes, bounded by the policy's timeouts, retried with backoff
+     * as far as their idempotency allows, hedged if enabled, and skip nodes whose circuit breaker is open.
+     *
+     * @param hosts the URLs of the Elasticsearch nodes
+     * @param username the username for authentication
+     * @param password the password for authentication
+     * @param codec the JsonCodec to use for serialization and deserialization
+     * @param policy the resilience policy, or null to send all requests once to the first node
+     */
+    public ElasticRestClient(List<String> hosts, String username, String password, JsonCodec codec, ResiliencePolicy policy) {
+        String baseUrl = hosts.get(0) +"/";
 
-        restClient = RestClient.builder()
+        this.codec = codec;
+        this.nodeCount = policy == null ? 1 : hosts.size();
+        RestClient.Builder builder = RestClient.builder()
                 .baseUrl(baseUrl)
                 .defaultHeaders(
                         headers -> {
                             headers.setContentType(MediaType.APPLICATION_JSON);
                             headers.setBasicAuth(username, password);
                         })
-                .build();
-        this.indexClient = new IndexClient(restClient);
-        this.bulkClient = new BulkClient(restClient);
-        this.documentClient = new DocumentClient(restClient);
+                .messageConverters(codec::configureMessageConverters);
+        this.requestFactory = policy == null ? null
+                : new ResilientRequestFactory(hosts, new JdkClientHttpRequestFactory(), policy);
+        if (requestFactory != null) {
+            builder.requestFactory(requestFactory);
+        }
+        restClient = builder.build();
+        this.indexClient = new IndexClient(restClient, codec);
+        this.bulkClient = new BulkClient(restClient, codec);
+        this.documentClient = new DocumentClient(restClient, codec);
+        this.taskClient = new TaskClient(restClient);
+        this.dumpClient = new DumpClient(restClient, codec);
+        this.esqlClient = new EsqlClient(restClient, codec);
+        this.asyncSearchClient = new AsyncSearchClient(restClient);
     }
     /**
      * Returns the DocumentClient for document operations.
@@ -67,6 +127,107 @@ public class ElasticRestClient {
     public BulkClient bulk() {
         return bulkClient;
     }
+    /**
+     * Returns the JsonCodec used for serialization and deserialization.
+     *
+     * @return the JsonCodec instance
+     */
+    public JsonCodec codec() {
+        return codec;
+    }
+    /**
+     * Returns the TaskClient for task operations.
+     *
+     * @return the TaskClient instance
+     */
+    public TaskClient tasks() {
+        return taskClient;
+    }
+    /**
+     * Returns the DumpClient for dumping indices to files and restoring them.
+     *
+     * @return the DumpClient instance
+     */
+    public DumpClient dump() {
+        return dumpClient;
+    }
+    /**
+     * Returns the EsqlClient for ES|QL queries with columnar results.
+     *
+     * @return the EsqlClient instance
+     */
+    public EsqlClient esql() {
+        return esqlClient;
+    }
+    /**
+     * Returns the AsyncSearchClient for long-running searches with partial results.
+     *
+     * @return the AsyncSearchClient instance
+     */
+    public AsyncSearchClient asyncSearch() {
+        return asyncSearchClient;
+    }
+    /**
+     * Warms up the client before it serves traffic, so the first requests are as fast as later ones.
+     * Builds the serializers and deserializers of the given document classes, opens a pooled connection
+     * to each node and checks the cluster health, see {@link #warmUp(int, Class[])}.
+     *
+     * @param documentClasses the document classes read and written by the application
+     * @return the cluster health response
+     */
+    public Map<String, Object> warmUp(Class<?>... documentClasses) {
+        return warmUp(1, documentClasses);
+    }
+    /**
+     * Warms up the client before it serves traffic, so the first requests are as fast as later ones.
+     * <p>
+     * Builds the serializers and deserializers of the client's response types and of the given document classes
+     * with {@link JsonCodec#warmUp(Class[])}, sends concurrent requests to open the given number of pooled
+     * connections to each node, and requests the cluster health. The requests load the classes of the whole
+     * request path, and the connections stay in the pool of the JDK HTTP client while idle for its keep-alive timeout.
+     *
+     * @param connectionsPerNode the number of connections to open to each node, 0 to open none besides the health request
+     * @param documentClasses the document classes read and written by the application
+     * @return the cluster health response
+     * @throws java.lang.IllegalArgumentException if the number of connections is negative
+     * @throws java.lang.RuntimeException if a node or the cluster health cannot be reached
+     */
+    public Map<String, Object> warmUp(int connectionsPerNode, Class<?>... documentClasses) {
+        if (connectionsPerNode < 0) {
+            throw new IllegalArgumentException("Number of connections per node must not be negative: " + connectionsPerNode);
+        }
+        codec.warmUp(documentClasses);
+        if (connectionsPerNode > 0) {
+            warmUpConnections(nodeCount * connectionsPerNode);
+        }
+        return restClient.get()
+                .uri("_cluster/health")
+                .retrieve()
+                .body(Map.class);
+    }
+    private void warmUpConnections(int requests) {
+        // nodes are selected round-robin, so concurrent requests are spread evenly over the nodes
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Map>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(() -> restClient.get().uri("/").retrieve().body(Map.class)));
+            }
+            for (Future<Map> response : responses) {
+                response.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while warming up connections", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Warming up connections failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
     /**
      * Creates a ScrollableSearch for paginated search results using Elasticsearch's scroll API.
      *
@@ -77,6 +238,41 @@ public class ElasticRestClient {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public ScrollableSearch scrollSearch(Index index, StringSearchQuery query, int pageSize) throws JsonProcessingException {
-        return new ScrollableSearch(restClient, index, query, pageSize);
+        return new ScrollableSearch(restClient, codec, index, query, pageSize);
+    }
+    /**
+     * Creates a ScrollableSearch for the given index, query, and page size,
+     * searching only the shards selected by the given routing and preference.
+     *
+     * @param index the index to search in
+     * @param query the search query
+     * @param pageSize the number of results per page
+     * @param params the routing keys and shard copy preference
+     * @return a new ScrollableSearch instance
+     */
+    public ScrollableSearch scrollSearch(Index index, StringSearchQuery query, int pageSize, SearchParams params) {
+        return new ScrollableSearch(restClient, codec, index, query, pageSize, params);
+    }
+    /**
+     * Creates a ChangeReader that reads the documents of an index changed since the watermark of the given store.
+     *
+     * @param index the index to read the changes of
+     * @param tracking the fields and settle lag identifying changed documents
+     * @param store the store of the watermark, e.g. {@link WatermarkStore#file(java.nio.file.Path)}
+     * @return a new ChangeReader instance
+     */
+    public ChangeReader changeReader(Index index, ChangeTracking tracking, WatermarkStore store) {
+        return new ChangeReader(restClient, codec, index, tracking, store);
+    }
+    /**
+     * Closes this client and releases the threads of its resilience policy.
+     * Requests already sent complete, requests sent afterwards fail with an {@link IllegalStateException}
+     * if the client has a resilience policy.
+     */
+    @Override
+    public void close() {
+        if (requestFactory != null) {
+            requestFactory.close();
+        }
     }
 }
@@ -0,0 +1,75 @@
+package io.github.nischie.elasticrestclient.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.github.nischie.elasticrestclient.domain.esql.EsqlResult;
+import io.github.nischie.elasticrestclient.util.EsqlResultReader;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client for ES|QL queries in Elasticsearch.
+ * <p>
+ * Requests the columnar response format of the {@code _query} endpoint and decodes each column directly
+ * into a primitive array, so scanning many rows costs neither a map per row nor a boxed value per cell.
+ * Requires Elasticsearch 8.11 or later.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class EsqlClient {
+    private final RestClient restClient;
+    private final JsonCodec codec;
+
+    /**
+     * Constructs an EsqlClient with the given RestClient and JsonCodec.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec the JsonCodec whose JSON factory is used to read responses
+     */
+    public EsqlClient(RestClient restClient, JsonCodec codec) {
+        this.restClient = restClient;
+        this.codec = codec;
+    }
+
+    /**
+     * Runs an ES|QL query, e.g. {@code FROM logs | STATS c = COUNT(*) BY host}.
+     *
+     * @param query the ES|QL query
+     * @return the columnar result
+     */
+    public EsqlResult query(String query) {
+        return query(query, List.of());
+    }
+
+    /**
+     * Runs an ES|QL query with positional parameters, which replace the {@code ?} placeholders of the query.
+     *
+     * @param query the ES|QL query
+     * @param params the values of the placeholders, in order
+     * @return the columnar result
+     */
+    public EsqlResult query(String query, List<?> params) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("query", query);
+        body.put("columnar", true);
+        if (!params.isEmpty()) {
+            body.put("params", params);
+        }
+        byte[] response = restClient.post()
+                .uri("_query")
+                .body(body)
+                .retrieve()
+                .body(byte[].class);
+        try (JsonParser parser = codec.objectMapper().getFactory().createParser(response)) {
+            return EsqlResultReader.read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ES|QL response", e);
+        }
+    }
+}
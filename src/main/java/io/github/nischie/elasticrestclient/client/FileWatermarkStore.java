@@ -0,0 +1,48 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.model.Watermark;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * WatermarkStore writing the watermark as JSON to a file, replaced atomically on each save.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+class FileWatermarkStore implements WatermarkStore {
+    private final Path file;
+
+    FileWatermarkStore(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Watermark load() throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return JsonCodec.defaultCodec().read(Files.readAllBytes(file), Watermark.class);
+    }
+
+    @Override
+    public void save(Watermark watermark) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer json = ByteBuffer.wrap(JsonCodec.defaultCodec().serializeToBytes(watermark));
+            while (json.hasRemaining()) {
+                channel.write(json);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.time.Duration;
+
+/**
+ * Represents when reads are hedged, i.e. duplicated on another node and shard copy if they are slow.
+ * <p>
+ * A read that has not completed after the hedge delay is sent again with a different {@code preference},
+ * preferably to another node; the first response wins and the other request is cancelled.
+ * The delay is the given percentile of the recently observed latency of the same kind of read,
+ * but at least the minimum delay. The budget limits the hedged requests to a fraction of all reads,
+ * so a slow cluster is not overloaded by duplicates.
+ *
+ * @param minDelay   the minimum delay before a read is hedged, the fixed delay if no percentile is given
+ * @param percentile the latency percentile, between 0 and 100, used as hedge delay, or null for a fixed delay
+ * @param budget     the maximum fraction of reads that may be hedged, between 0 and 1
+ */
+public record HedgePolicy(
+        Duration minDelay,
+        Double percentile,
+        double budget
+) {
+    /**
+     * Creates a HedgePolicy hedging reads slower than the given percentile of the observed latency.
+     *
+     * @param percentile the latency percentile, e.g. 95
+     * @param minDelay the minimum delay before a read is hedged
+     * @param budget the maximum fraction of reads that may be hedged, e.g. 0.05
+     * @return a new HedgePolicy
+     */
+    public static HedgePolicy percentile(double percentile, Duration minDelay, double budget) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        return new HedgePolicy(minDelay, percentile, budget);
+    }
+
+    /**
+     * Creates a HedgePolicy hedging every read slower than the given delay.
+     *
+     * @param delay the delay before a read is hedged
+     * @return a new HedgePolicy
+     */
+    public static HedgePolicy fixed(Duration delay) {
+        return new HedgePolicy(delay, null, 1.0);
+    }
+}
@@ -1,10 +1,26 @@
 package io.github.nischie.elasticrestclient.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.github.nischie.elasticrestclient.domain.indices.AliasActions;
+import io.github.nischie.elasticrestclient.domain.indices.BulkLoadState;
+import io.github.nischie.elasticrestclient.domain.indices.IndexDefinition;
+import io.github.nischie.elasticrestclient.domain.indices.RolloverConditions;
+import io.github.nischie.elasticrestclient.domain.indices.RolloverResult;
 import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.queries.ByQueryOptions;
+import io.github.nischie.elasticrestclient.domain.tasks.TaskStatus;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Client for index operations in Elasticsearch.
@@ -17,16 +33,32 @@ import java.util.Map;
  */
 public class IndexClient {
     private final RestClient restClient;
+    private final TaskClient taskClient;
+    private final JsonCodec codec;
+    private final Object refreshLock = new Object();
+    private RefreshRound nextRefresh;
+    private boolean refreshInFlight;
     /**
      * Constructs an IndexClient with the given RestClient.
      *
      * @param restClient the RestClient to use for HTTP operations
      */
     public IndexClient(RestClient restClient) {
+        this(restClient, JsonCodec.defaultCodec());
+    }
+    /**
+     * Constructs an IndexClient with the given RestClient and JsonCodec.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec the JsonCodec to use for serialization
+     */
+    public IndexClient(RestClient restClient, JsonCodec codec) {
         this.restClient = restClient;
+        this.taskClient = new TaskClient(restClient);
+        this.codec = codec;
     }
     /**
-     * Creates an index with the specified name and optional mapping.
+     * Creates an index with the specified name and default settings and dynamic mappings.
      *
      * @param index the index to create
      * @return the response entity of the rest request
@@ -37,6 +69,21 @@ public class IndexClient {
                 .retrieve()
                 .toEntity(Map.class);
     }
+    /**
+     * Creates an index with the specified name, settings and mappings.
+     *
+     * @param index the index to create
+     * @param definition the settings and mappings of the index
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> createIndex(Index index, IndexDefinition definition) throws JsonProcessingException {
+        return restClient.put()
+                .uri(index._index())
+                .body(codec.serialize(definition))
+                .retrieve()
+                .toEntity(Map.class);
+    }
     /**
      * Deletes the specified index.
      *
@@ -100,4 +147,413 @@ public class IndexClient {
         Map<String, Object> aliases = (Map<String, Object>) aliasMap.get("aliases");
         return aliases;
     }
+
+    /**
+     * Applies the given alias actions atomically in a single request.
+     *
+     * @param actions the add and remove actions
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> updateAliases(AliasActions actions) throws JsonProcessingException {
+        return restClient.post()
+                .uri("_aliases")
+                .body(codec.serialize(actions))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Returns the indices the specified alias points to.
+     *
+     * @param aliasName the name of the alias
+     * @return the indices of the alias, or an empty list if the alias does not exist
+     */
+    public List<Index> getIndicesForAlias(String aliasName) {
+        try {
+            Map<String, Object> map = restClient.get()
+                    .uri("_alias/" + aliasName)
+                    .retrieve()
+                    .body(Map.class);
+            return map.keySet().stream().map(Index::of).toList();
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (e.getStatusCode().value() == 404) {
+                return List.of();
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates or replaces a composable index template, applied to each new index matching one of the patterns.
+     * With {@code dataStream} set, writing to a name matching the patterns creates a data stream whose
+     * backing indices get the template; its documents need a {@code @timestamp} field.
+     *
+     * @param name the name of the template
+     * @param indexPatterns the index patterns the template applies to, e.g. {@code logs-app*}
+     * @param template the settings and mappings of the matching indices, or null for none
+     * @param dataStream whether matching names are data streams
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> putIndexTemplate(String name, List<String> indexPatterns, IndexDefinition template,
+                                                boolean dataStream) throws JsonProcessingException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("index_patterns", indexPatterns);
+        if (dataStream) {
+            body.put("data_stream", Map.of());
+        }
+        if (template != null) {
+            body.put("template", template);
+        }
+        return restClient.put()
+                .uri("_index_template/" + name)
+                .body(codec.serialize(body))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Creates a data stream. A matching index template with {@code data_stream} enabled must exist.
+     * Writing the first document with a {@code create} request creates the data stream as well.
+     *
+     * @param name the name of the data stream
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> createDataStream(String name) {
+        return restClient.put()
+                .uri("_data_stream/" + name)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Deletes a data stream together with all its backing indices.
+     *
+     * @param name the name of the data stream
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> deleteDataStream(String name) {
+        return restClient.delete()
+                .uri("_data_stream/" + name)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Rolls the write index of a data stream or alias over to a new index if any of the conditions is met.
+     * Calling this periodically bounds the size and age of the index written to, so write throughput does not
+     * degrade as the data grows and old indices can be force-merged, moved or deleted as a whole.
+     * An alias needs an index with {@code is_write_index} and a name ending in a number, e.g. {@code logs-000001}.
+     *
+     * @param target the name of the data stream or alias
+     * @param conditions the conditions of the rollover
+     * @return the result of the rollover, telling whether it happened and which conditions were met
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public RolloverResult rollover(String target, RolloverConditions conditions) throws JsonProcessingException {
+        return restClient.post()
+                .uri(target + "/_rollover")
+                .body(codec.serialize(Map.of("conditions", conditions)))
+                .retrieve()
+                .body(RolloverResult.class);
+    }
+
+    /**
+     * Copies all documents from the source index or alias into the destination index
+     * using the server-side Reindex API.
+     *
+     * @param source the index or alias to copy from
+     * @param dest the index to copy into
+     * @param options the slicing, throttling and conflict options of the reindex request
+     * @return the response entity of the rest request, containing only the task ID if not waiting for completion
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> reindex(Index source, Index dest, ByQueryOptions options) throws JsonProcessingException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (options.conflictsProceed()) {
+            body.put("conflicts", "proceed");
+        }
+        body.put("source", Map.of("index", source._index()));
+        body.put("dest", Map.of("index", dest._index()));
+        return restClient.post()
+                .uri("_reindex?" + options.toReindexQueryParams())
+                .body(codec.serialize(body))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Starts copying all documents from the source index or alias into the destination index as a background task.
+     * The call returns immediately, the returned handle allows polling, rethrottling and cancelling the task.
+     *
+     * @param source the index or alias to copy from
+     * @param dest the index to copy into
+     * @param options the slicing, throttling and conflict options of the reindex request
+     * @return a handle for the started task
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public TaskHandle reindexAsync(Index source, Index dest, ByQueryOptions options) throws JsonProcessingException {
+        var response = reindex(source, dest, options.async());
+        return taskClient.handle("_reindex", response.getBody());
+    }
+
+    /**
+     * Rebuilds the indices behind an alias without a read gap.
+     * <p>
+     * Creates the new index in bulk load mode, copies all documents currently readable through the alias
+     * into it with a reindex task, ends the bulk load mode, and finally swaps the alias from the old indices
+     * to the new index in one atomic request. Readers of the alias see the old data until the swap.
+     * The old indices are not deleted.
+     * <p>
+     * If the reindex fails or is interrupted, the alias is left unchanged and the partially filled new index is
+     * kept for inspection, with its bulk load settings restored; the caller has to delete it before a retry.
+     * An interrupted wait does not cancel the reindex task.
+     *
+     * @param aliasName the name of the alias to rebuild
+     * @param newIndex the index to create and copy into
+     * @param definition the settings and mappings of the new index
+     * @param options the slicing, throttling and conflict options of the reindex
+     * @param pollInterval the interval between two polls of the reindex task
+     * @param progressListener the listener receiving each polled status of the reindex task
+     * @return the indices the alias pointed to before the swap
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     * @throws java.lang.InterruptedException if interrupted while waiting for the reindex task
+     */
+    public List<Index> reindexAndSwapAlias(String aliasName, Index newIndex, IndexDefinition definition, ByQueryOptions options,
+                                           Duration pollInterval, Consumer<TaskStatus> progressListener)
+            throws JsonProcessingException, InterruptedException {
+        List<Index> oldIndices = getIndicesForAlias(aliasName);
+        createIndex(newIndex, definition);
+        if (!oldIndices.isEmpty()) {
+            BulkLoadState state = beginBulkLoad(newIndex);
+            try {
+                reindexAsync(Index.of(aliasName), newIndex, options).awaitCompletion(pollInterval, progressListener);
+            } catch (JsonProcessingException | InterruptedException | RuntimeException | Error e) {
+                try {
+                    endBulkLoad(state);
+                } catch (JsonProcessingException | RuntimeException restoreFailure) {
+                    e.addSuppressed(restoreFailure);
+                }
+                throw e;
+            }
+            endBulkLoad(state);
+        }
+        AliasActions actions = AliasActions.create();
+        oldIndices.forEach(oldIndex -> actions.remove(oldIndex, aliasName));
+        actions.add(newIndex, aliasName);
+        updateAliases(actions);
+        return oldIndices;
+    }
+
+    /**
+     * Returns the explicitly set settings of the specified index in flat format,
+     * e.g. {@code index.refresh_interval}.
+     *
+     * @param index the index to get the settings for
+     * @return a map of flat setting names to their values
+     */
+    public Map<String, Object> getSettings(Index index) {
+        Map<String, Object> map = restClient.get()
+                .uri(index._index() + "/_settings?flat_settings=true")
+                .retrieve()
+                .body(Map.class);
+        Map<String, Object> indexMap = (Map<String, Object>) map.get(index._index());
+        return (Map<String, Object>) indexMap.get("settings");
+    }
+
+    /**
+     * Updates dynamic settings of the specified index.
+     * A null value resets the setting to its default.
+     *
+     * @param index the index to update the settings of
+     * @param settings a map of flat setting names, e.g. {@code index.refresh_interval}, to their values
+     * @return the response entity of the rest request
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public ResponseEntity<Map> putSettings(Index index, Map<String, Object> settings) throws JsonProcessingException {
+        return restClient.put()
+                .uri(index._index() + "/_settings")
+                .body(codec.serialize(settings))
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Refreshes the specified index, making all operations performed since the last refresh visible to search.
+     *
+     * @param index the index to refresh
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> refresh(Index index) {
+        return refresh(new Index[]{index});
+    }
+
+    /**
+     * Refreshes the specified indices, making all operations performed since the last refresh visible to search.
+     * <p>
+     * Concurrent calls are coalesced: while a refresh is running, further calls wait and are then served together
+     * by a single refresh of all their indices, which starts after each of them was called. So many writers can
+     * request read-after-write visibility without sending one refresh each.
+     *
+     * @param indices the indices to refresh
+     * @return the response entity of the refresh request that served this call
+     */
+    public ResponseEntity<Map> refresh(Index... indices) {
+        RefreshRound round;
+        boolean leader = false;
+        synchronized (refreshLock) {
+            if (nextRefresh == null) {
+                nextRefresh = new RefreshRound();
+            }
+            round = nextRefresh;
+            for (Index index : indices) {
+                round.indices.add(index._index());
+            }
+            try {
+                while (refreshInFlight && !round.done) {
+                    refreshLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for refresh", e);
+            }
+            if (!round.done) {
+                leader = true;
+                refreshInFlight = true;
+                nextRefresh = null;
+            }
+        }
+        if (leader) {
+            try {
+                round.response = restClient.post()
+                        .uri(String.join(",", round.indices) + "/_refresh")
+                        .retrieve()
+                        .toEntity(Map.class);
+            } catch (RuntimeException e) {
+                round.failure = e;
+            } finally {
+                synchronized (refreshLock) {
+                    round.done = true;
+                    refreshInFlight = false;
+                    refreshLock.notifyAll();
+                }
+            }
+        }
+        if (round.failure != null) {
+            throw round.failure;
+        }
+        return round.response;
+    }
+
+    /**
+     * Force-merges the segments of the specified index. Blocks until the merge has finished.
+     *
+     * @param index the index to merge
+     * @param maxNumSegments the number of segments to merge each shard into
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> forceMerge(Index index, int maxNumSegments) {
+        return restClient.post()
+                .uri(index._index() + "/_forcemerge?max_num_segments=" + maxNumSegments)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Puts the specified index into bulk load mode by disabling refreshes and replicas.
+     * The previous settings are returned, so they can be restored with {@link #endBulkLoad(BulkLoadState)}.
+     *
+     * @param index the index to bulk load into
+     * @return the settings replaced by the bulk load mode
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public BulkLoadState beginBulkLoad(Index index) throws JsonProcessingException {
+        Map<String, Object> settings = getSettings(index);
+        var state = new BulkLoadState(index,
+                (String) settings.get("index.refresh_interval"),
+                (String) settings.get("index.number_of_replicas"));
+        putSettings(index, Map.of(
+                "index.refresh_interval", "-1",
+                "index.number_of_replicas", "0"));
+        return state;
+    }
+
+    /**
+     * Ends the bulk load mode of an index: restores the previous settings,
+     * force-merges each shard into a single segment and refreshes the index.
+     *
+     * @param state the settings returned by {@link #beginBulkLoad(Index)}
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public void endBulkLoad(BulkLoadState state) throws JsonProcessingException {
+        endBulkLoad(state, 1);
+    }
+
+    /**
+     * Ends the bulk load mode of an index: restores the previous settings,
+     * force-merges the segments and refreshes the index.
+     *
+     * @param state the settings returned by {@link #beginBulkLoad(Index)}
+     * @param maxNumSegments the number of segments to merge each shard into
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public void endBulkLoad(BulkLoadState state, int maxNumSegments) throws JsonProcessingException {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put("index.refresh_interval", state.refreshInterval());
+        settings.put("index.number_of_replicas", state.numberOfReplicas());
+        putSettings(state.index(), settings);
+        forceMerge(state.index(), maxNumSegments);
+        refresh(state.index());
+    }
+
+    /**
+     * Runs a bulk load into the specified index: enters bulk load mode, lets the given work add
+     * requests to the BulkClient, executes the remaining bulk requests and ends the bulk load mode,
+     * also if the work fails.
+     *
+     * @param index the index to bulk load into
+     * @param bulkClient the BulkClient to add the requests to
+     * @param work the work adding the bulk requests
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public void bulkLoad(Index index, BulkClient bulkClient, BulkLoad work) throws JsonProcessingException {
+        BulkLoadState state = beginBulkLoad(index);
+        try {
+            work.load(bulkClient);
+            bulkClient.executeBulk(true);
+        } catch (JsonProcessingException | RuntimeException | Error e) {
+            try {
+                endBulkLoad(state);
+            } catch (JsonProcessingException | RuntimeException restoreFailure) {
+                e.addSuppressed(restoreFailure);
+            }
+            throw e;
+        }
+        endBulkLoad(state);
+    }
+
+    /**
+     * Work adding requests to a BulkClient during {@link #bulkLoad(Index, BulkClient, BulkLoad)}.
+     */
+    @FunctionalInterface
+    public interface BulkLoad {
+        /**
+         * Adds the bulk requests to load.
+         *
+         * @param bulkClient the BulkClient to add the requests to
+         * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+         */
+        void load(BulkClient bulkClient) throws JsonProcessingException;
+    }
+
+    /**
+     * A refresh serving all calls that joined it before it started.
+     */
+    private static final class RefreshRound {
+        private final Set<String> indices = new LinkedHashSet<>();
+        private boolean done;
+        private ResponseEntity<Map> response;
+        private RuntimeException failure;
+    }
 }
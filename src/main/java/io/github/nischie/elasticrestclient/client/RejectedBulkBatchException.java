@@ -0,0 +1,39 @@
+package io.github.nischie.elasticrestclient.client;
+
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thrown when the cluster rejects a spooled bulk batch as a whole, e.g. with 400 or 413.
+ * <p>
+ * Such a batch can never succeed, so it is removed from the spool instead of blocking the batches after it.
+ * The exception carries the NDJSON payload of the batch, so it can be inspected, split or stored elsewhere.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class RejectedBulkBatchException extends RuntimeException {
+    private final transient byte[] payload;
+
+    /**
+     * Constructs a RejectedBulkBatchException.
+     *
+     * @param payload the NDJSON payload of the rejected batch
+     * @param cause the error response of the cluster
+     */
+    public RejectedBulkBatchException(byte[] payload, HttpClientErrorException cause) {
+        super("Bulk batch of " + payload.length + " bytes rejected with " + cause.getStatusCode().value() + ": "
+                + cause.getResponseBodyAsString(StandardCharsets.UTF_8), cause);
+        this.payload = payload;
+    }
+
+    /**
+     * Returns the NDJSON payload of the rejected batch.
+     *
+     * @return the payload
+     */
+    public byte[] payload() {
+        return payload;
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.time.Duration;
+
+/**
+ * Represents the resilience policy applied to all requests of an {@link ElasticRestClient}.
+ * <p>
+ * Controls the timeout per operation type, how often and with which backoff failed requests are retried,
+ * when the circuit breaker of a node opens, and after which delay reads are hedged on another node.
+ * Retries honor idempotency: reads and PUT and DELETE requests are retried on any transient failure, other writes,
+ * including bulk requests, which may hold creates with generated IDs, only if the request cannot have reached
+ * Elasticsearch (connection refused) or was rejected without being executed (HTTP 429 and 503).
+ *
+ * @param readTimeout     the timeout of reads (GET, search, count), or null for no timeout; like the other timeouts,
+ *                        extended by the {@code wait_for_completion_timeout} of long polls such as async searches
+ * @param writeTimeout    the timeout of single-document and index writes, or null for no timeout
+ * @param bulkTimeout     the timeout of bulk requests, or null for no timeout
+ * @param maxRetries      the maximum number of retries after the first attempt
+ * @param initialBackoff  the backoff before the first retry, doubled for each further retry
+ * @param maxBackoff      the maximum backoff before a retry
+ * @param failureThreshold the number of consecutive failures after which the circuit breaker of a node opens
+ * @param openDuration    how long a node is skipped once its circuit breaker opened, before a probe request is let through
+ * @param hedging         when reads are duplicated on another node and shard copy, or null to disable hedging
+ */
+public record ResiliencePolicy(
+        Duration readTimeout,
+        Duration writeTimeout,
+        Duration bulkTimeout,
+        int maxRetries,
+        Duration initialBackoff,
+        Duration maxBackoff,
+        int failureThreshold,
+        Duration openDuration,
+        HedgePolicy hedging
+) {
+    /**
+     * Returns the default policy: timeouts of 10 seconds for reads, 30 seconds for writes and 2 minutes for bulk
+     * requests, up to 3 retries with a backoff from 50 milliseconds to 2 seconds, circuit breakers opening for
+     * 30 seconds after 5 consecutive failures, and no hedging.
+     *
+     * @return the default ResiliencePolicy
+     */
+    public static ResiliencePolicy defaults() {
+        return new ResiliencePolicy(Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofMinutes(2),
+                3, Duration.ofMillis(50), Duration.ofSeconds(2),
+                5, Duration.ofSeconds(30),
+                null);
+    }
+
+    /**
+     * Returns a copy of this policy with the given timeouts.
+     *
+     * @param readTimeout the timeout of reads, or null for no timeout
+     * @param writeTimeout the timeout of writes, or null for no timeout
+     * @param bulkTimeout the timeout of bulk requests, or null for no timeout
+     * @return a new ResiliencePolicy instance
+     */
+    public ResiliencePolicy timeouts(Duration readTimeout, Duration writeTimeout, Duration bulkTimeout) {
+        return new ResiliencePolicy(readTimeout, writeTimeout, bulkTimeout, maxRetries, initialBackoff, maxBackoff,
+                failureThreshold, openDuration, hedging);
+    }
+
+    /**
+     * Returns a copy of this policy with the given retries.
+     *
+     * @param maxRetries the maximum number of retries, 0 to disable retries
+     * @param initialBackoff the backoff before the first retry
+     * @param maxBackoff the maximum backoff before a retry
+     * @return a new ResiliencePolicy instance
+     */
+    public ResiliencePolicy retries(int maxRetries, Duration initialBackoff, Duration maxBackoff) {
+        return new ResiliencePolicy(readTimeout, writeTimeout, bulkTimeout, maxRetries, initialBackoff, maxBackoff,
+                failureThreshold, openDuration, hedging);
+    }
+
+    /**
+     * Returns a copy of this policy with the given circuit breaker settings.
+     *
+     * @param failureThreshold the number of consecutive failures after which a node is skipped
+     * @param openDuration how long a node is skipped
+     * @return a new ResiliencePolicy instance
+     */
+    public ResiliencePolicy circuitBreaker(int failureThreshold, Duration openDuration) {
+        return new ResiliencePolicy(readTimeout, writeTimeout, bulkTimeout, maxRetries, initialBackoff, maxBackoff,
+                failureThreshold, openDuration, hedging);
+    }
+
+    /**
+     * Returns a copy of this policy that duplicates reads on another node if they take longer than the given delay.
+     *
+     * @param hedgeDelay the delay after which a read is hedged
+     * @return a new ResiliencePolicy instance
+     */
+    public ResiliencePolicy hedging(Duration hedgeDelay) {
+        return hedging(HedgePolicy.fixed(hedgeDelay));
+    }
+
+    /**
+     * Returns a copy of this policy that hedges reads according to the given hedge policy.
+     *
+     * @param hedging the hedge policy, or null to disable hedging
+     * @return a new ResiliencePolicy instance
+     */
+    public ResiliencePolicy hedging(HedgePolicy hedging) {
+        return new ResiliencePolicy(readTimeout, writeTimeout, bulkTimeout, maxRetries, initialBackoff, maxBackoff,
+                failureThreshold, openDuration, hedging);
+    }
+}
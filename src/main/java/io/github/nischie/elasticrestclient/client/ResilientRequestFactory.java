@@ -0,0 +1,602 @@
+package io.github.nischie.elasticrestclient.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request factory applying a {@link ResiliencePolicy} to all requests of a RestClient.
+ * <p>
+ * Each request is sent to the next node whose circuit breaker lets it through, bounded by the timeout of its
+ * operation type, retried with jittered exponential backoff as far as its idempotency allows, and, for reads,
+ * hedged on another node and shard copy once it is slower than a percentile of the recent latency of the same kind
+ * of read. Only searches, counts, multi-reads and document gets are hedged; scroll requests are neither hedged nor
+ * treated as reads, as a duplicate would advance the scroll. Working on the request factory rather than an
+ * interceptor keeps streaming bodies, such as bulk bodies, unbuffered.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+class ResilientRequestFactory implements ClientHttpRequestFactory {
+    private static final Set<String> READ_ENDPOINTS = Set.of("_search", "_count", "_msearch", "_mget", "_query");
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(429, 502, 503, 504);
+    private static final Set<Integer> UNEXECUTED_STATUS = Set.of(429, 503);
+    private static final Set<String> PREFERENCE_ENDPOINTS = Set.of("_search", "_count", "_mget");
+    private static final Set<String> DOCUMENT_ENDPOINTS = Set.of("_doc", "_source");
+    private static final long BUDGET_WINDOW = 10_000;
+    private static final Pattern TIME_VALUE = Pattern.compile("(\\d+)(ms|s|m|h|d|)");
+
+    private final List<Node> nodes;
+    private final ClientHttpRequestFactory delegate;
+    private final ResiliencePolicy policy;
+    private final ExecutorService executor;
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+    private long hedgeableReads;
+    private long hedgesSent;
+
+    /**
+     * Constructs a ResilientRequestFactory.
+     *
+     * @param hosts the URLs of the Elasticsearch nodes
+     * @param delegate the factory creating the requests sent to a node
+     * @param policy the resilience policy to apply
+     */
+    ResilientRequestFactory(List<String> hosts, ClientHttpRequestFactory delegate, ResiliencePolicy policy) {
+        if (hosts.isEmpty()) {
+            throw new IllegalArgumentException("At least one host is required");
+        }
+        this.nodes = hosts.stream().map(host -> new Node(URI.create(host))).toList();
+        this.delegate = delegate;
+        this.policy = policy;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "elastic-rest-client-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod method) {
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("Client is closed");
+        }
+        return new ResilientRequest(uri, method);
+    }
+
+    /**
+     * Shuts down the threads sending timed and hedged attempts; attempts already running complete,
+     * and requests created afterwards fail.
+     */
+    void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Marks a body as repeatable, so requests sending it may be retried and hedged.
+     *
+     * @param body a body that writes the same bytes each time it is written
+     * @return the repeatable body
+     */
+    static StreamingHttpOutputMessage.Body repeatable(StreamingHttpOutputMessage.Body body) {
+        return new StreamingHttpOutputMessage.Body() {
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                body.writeTo(out);
+            }
+
+            @Override
+            public boolean repeatable() {
+                return true;
+            }
+        };
+    }
+
+    private enum Operation { READ, WRITE, BULK }
+
+    private static Operation operation(HttpMethod method, URI uri) {
+        String path = uri.getPath() == null ? "" : uri.getPath();
+        String endpoint = path.substring(path.lastIndexOf('/') + 1);
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || READ_ENDPOINTS.contains(endpoint)) {
+            return Operation.READ;
+        }
+        return "_bulk".equals(endpoint) ? Operation.BULK : Operation.WRITE;
+    }
+
+    private Duration timeout(Operation operation, URI uri) {
+        Duration timeout = switch (operation) {
+            case READ -> policy.readTimeout();
+            case WRITE -> policy.writeTimeout();
+            case BULK -> policy.bulkTimeout();
+        };
+        // a long poll, e.g. of an async search, may block for its wait before it responds
+        Duration wait = waitForCompletionTimeout(uri);
+        return timeout == null || wait == null ? timeout : timeout.plus(wait);
+    }
+
+    private static Duration waitForCompletionTimeout(URI uri) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String param : query.split("&")) {
+            if (param.startsWith("wait_for_completion_timeout=")) {
+                return parseTime(param.substring(param.indexOf('=') + 1));
+            }
+        }
+        return null;
+    }
+
+    private static Duration parseTime(String value) {
+        Matcher matcher = TIME_VALUE.matcher(value);
+        if (!matcher.matches()) {
+            return null;
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "", "ms" -> Duration.ofMillis(amount);
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
+    private Node selectNode() throws IOException {
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(Math.floorMod(nextNode.getAndIncrement(), nodes.size()));
+            if (node.allowRequest()) {
+                return node;
+            }
+        }
+        throw new IOException("No Elasticsearch node available: all circuit breakers are open");
+    }
+
+    private Node selectOtherNode(Node exclude) {
+        int start = nodes.indexOf(exclude);
+        for (int i = 1; i < nodes.size(); i++) {
+            Node node = nodes.get((start + i) % nodes.size());
+            if (node.allowRequest()) {
+                return node;
+            }
+        }
+        return exclude;
+    }
+
+    /**
+     * Takes a hedge from the budget, which allows hedging the configured fraction of the recent reads.
+     */
+    private synchronized boolean tryAcquireHedge() {
+        if (hedgesSent >= policy.hedging().budget() * hedgeableReads) {
+            return false;
+        }
+        hedgesSent++;
+        return true;
+    }
+
+    private synchronized void countHedgeableRead() {
+        if (++hedgeableReads > BUDGET_WINDOW) {
+            hedgeableReads /= 2;
+            hedgesSent /= 2;
+        }
+    }
+
+    private static String readKind(HttpMethod method, URI uri) {
+        String[] segments = (uri.getPath() == null ? "" : uri.getPath()).split("/");
+        if (HttpMethod.GET.equals(method) && segments.length >= 2) {
+            return method + " " + segments[segments.length - 2];
+        }
+        return method + " " + (segments.length == 0 ? "" : segments[segments.length - 1]);
+    }
+
+    /**
+     * Returns whether a read may be hedged: searches, counts, multi-reads and ES|QL queries, and gets of single
+     * documents or their sources. Other GETs, e.g. of tasks, cluster state or async searches, are neither
+     * hedged nor routed with a preference, which those endpoints reject, and may be long polls.
+     */
+    private static boolean isHedgeable(HttpMethod method, URI uri) {
+        String[] segments = (uri.getPath() == null ? "" : uri.getPath()).split("/");
+        if (segments.length == 0 || uri.toString().contains("scroll=")) {
+            return false;
+        }
+        if (READ_ENDPOINTS.contains(segments[segments.length - 1])) {
+            return true;
+        }
+        return (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method))
+                && segments.length >= 2 && DOCUMENT_ENDPOINTS.contains(segments[segments.length - 2]);
+    }
+
+    private static URI withHedgePreference(HttpMethod method, URI uri) {
+        String[] segments = (uri.getPath() == null ? "" : uri.getPath()).split("/");
+        boolean acceptsPreference = segments.length > 0 && PREFERENCE_ENDPOINTS.contains(segments[segments.length - 1])
+                || segments.length >= 2 && DOCUMENT_ENDPOINTS.contains(segments[segments.length - 2]);
+        if (!acceptsPreference || uri.getRawQuery() != null && uri.getRawQuery().contains("preference=")) {
+            // an explicit preference may target specific shards, so it is kept
+            return uri;
+        }
+        return UriComponentsBuilder.fromUri(uri)
+                .replaceQueryParam("preference", "hedge-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE))
+                .build(true)
+                .toUri();
+    }
+
+    private void backoff(int retry) throws InterruptedIOException {
+        long cap = Math.min(policy.maxBackoff().toMillis(), policy.initialBackoff().toMillis() << Math.min(retry, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off before retry");
+        }
+    }
+
+    private static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A request collecting method, URI, headers and body, which sends one or more attempts on execution.
+     */
+    private final class ResilientRequest implements ClientHttpRequest, StreamingHttpOutputMessage {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private ByteArrayOutputStream bufferedBody;
+        private Body body;
+
+        private ResilientRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            if (bufferedBody == null) {
+                bufferedBody = new ByteArrayOutputStream();
+                body = repeatable(bufferedBody::writeTo);
+            }
+            return bufferedBody;
+        }
+
+        @Override
+        public void setBody(Body body) {
+            this.body = body;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            Operation operation = operation(method, uri);
+            boolean repeatable = body == null || body.repeatable();
+            // bulk bodies may hold creates with generated IDs or scripted updates, so bulks are not idempotent
+            boolean idempotent = operation == Operation.READ
+                    || HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method);
+            int maxRetries = repeatable ? policy.maxRetries() : 0;
+            for (int retry = 0; ; retry++) {
+                boolean lastAttempt = retry >= maxRetries;
+                ClientHttpResponse response;
+                try {
+                    response = operation == Operation.READ && repeatable && policy.hedging() != null
+                            && isHedgeable(method, uri)
+                            ? executeHedged(timeout(operation, uri))
+                            : executeWithTimeout(selectNode(), timeout(operation, uri));
+                } catch (IOException e) {
+                    if (lastAttempt || !(idempotent || isConnectFailure(e))) {
+                        throw e;
+                    }
+                    backoff(retry);
+                    continue;
+                }
+                int status = response.getStatusCode().value();
+                if (lastAttempt || !RETRYABLE_STATUS.contains(status) || !(idempotent || UNEXECUTED_STATUS.contains(status))) {
+                    return response;
+                }
+                response.close();
+                backoff(retry);
+            }
+        }
+
+        private ClientHttpResponse executeWithTimeout(Node node, Duration timeout) throws IOException {
+            if (timeout == null) {
+                return new Attempt(node, uri).call();
+            }
+            Attempt attempt = new Attempt(node, uri);
+            attempt.future = executor.submit(attempt);
+            return await(attempt, timeout);
+        }
+
+        private ClientHttpResponse executeHedged(Duration timeout) throws IOException {
+            LatencyTracker latency = latencies.computeIfAbsent(readKind(method, uri), kind -> new LatencyTracker());
+            long hedgeDelayNanos = latency.hedgeDelayNanos(policy.hedging());
+            countHedgeableRead();
+            long start = System.nanoTime();
+            long deadline = timeout == null ? Long.MAX_VALUE : start + timeout.toNanos();
+            ExecutorCompletionService<ClientHttpResponse> completion = new ExecutorCompletionService<>(executor);
+            Attempt primary = new Attempt(selectNode(), uri);
+            primary.future = completion.submit(primary);
+            Attempt hedge = null;
+            boolean hedgeDue = true;
+            int running = 1;
+            IOException failure = null;
+            try {
+                while (running > 0) {
+                    long waitNanos = deadline - System.nanoTime();
+                    if (hedgeDue) {
+                        waitNanos = Math.min(waitNanos, start + hedgeDelayNanos - System.nanoTime());
+                    }
+                    Future<ClientHttpResponse> done = waitNanos > 0 ? completion.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                    if (done == null) {
+                        if (System.nanoTime() - deadline >= 0) {
+                            primary.node.onFailure();
+                            throw new SocketTimeoutException("Request " + method + " " + uri + " timed out after " + timeout);
+                        }
+                        if (hedgeDue) {
+                            hedgeDue = false;
+                            if (tryAcquireHedge()) {
+                                hedge = new Attempt(selectOtherNode(primary.node), withHedgePreference(method, uri));
+                                hedge.future = completion.submit(hedge);
+                                running++;
+                            }
+                        }
+                        continue;
+                    }
+                    running--;
+                    try {
+                        ClientHttpResponse response = done.get();
+                        if (running == 0 || !RETRYABLE_STATUS.contains(response.getStatusCode().value())) {
+                            Attempt loser = done == primary.future ? hedge : primary;
+                            if (loser != null) {
+                                loser.abandon();
+                            }
+                            // if the hedge won, the primary's elapsed time is a lower bound of its latency
+                            latency.record(System.nanoTime() - start);
+                            return response;
+                        }
+                        response.close();
+                    } catch (ExecutionException e) {
+                        failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                    }
+                }
+                throw failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + method + " " + uri);
+            } catch (IOException e) {
+                primary.abandon();
+                if (hedge != null) {
+                    hedge.abandon();
+                }
+                throw e;
+            }
+        }
+
+        private ClientHttpResponse await(Attempt attempt, Duration timeout) throws IOException {
+            try {
+                return attempt.future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                attempt.abandon();
+                attempt.node.onFailure();
+                throw new SocketTimeoutException("Request " + method + " " + uri + " timed out after " + timeout);
+            } catch (InterruptedException e) {
+                attempt.abandon();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + method + " " + uri);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            }
+        }
+
+        /**
+         * A single attempt of this request on one node.
+         */
+        private final class Attempt implements Callable<ClientHttpResponse> {
+            private final Node node;
+            private final URI target;
+            private Future<ClientHttpResponse> future;
+            private ClientHttpResponse response;
+            private boolean abandoned;
+
+            private Attempt(Node node, URI target) {
+                this.node = node;
+                this.target = target;
+            }
+
+            @Override
+            public ClientHttpResponse call() throws IOException {
+                ClientHttpResponse result;
+                try {
+                    ClientHttpRequest request = delegate.createRequest(node.resolve(target), method);
+                    request.getHeaders().putAll(headers);
+                    request.getAttributes().putAll(attributes);
+                    if (body != null) {
+                        if (request instanceof StreamingHttpOutputMessage streaming) {
+                            streaming.setBody(body);
+                        } else {
+                            body.writeTo(request.getBody());
+                        }
+                    }
+                    result = request.execute();
+                } catch (IOException e) {
+                    node.onFailure();
+                    throw e;
+                }
+                if (result.getStatusCode().value() >= 502) {
+                    node.onFailure();
+                } else {
+                    node.onSuccess();
+                }
+                synchronized (this) {
+                    if (abandoned) {
+                        result.close();
+                        throw new CancellationException("Request attempt abandoned");
+                    }
+                    response = result;
+                }
+                return result;
+            }
+
+            /**
+             * Stops waiting for this attempt and releases its response once it arrives.
+             */
+            private void abandon() {
+                synchronized (this) {
+                    abandoned = true;
+                    if (response != null) {
+                        response.close();
+                    }
+                }
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sliding window of the latencies of one kind of read, with a periodically recomputed percentile.
+     */
+    private static final class LatencyTracker {
+        private static final int WINDOW = 1024;
+        private static final int MIN_SAMPLES = 32;
+        private static final int RECOMPUTE_INTERVAL = 64;
+
+        private final long[] samples = new long[WINDOW];
+        private int count;
+        private int next;
+        private long recorded;
+        private long percentileNanos = -1;
+        private Double percentile;
+
+        private synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            if (++recorded % RECOMPUTE_INTERVAL == 0) {
+                percentileNanos = -1;
+            }
+        }
+
+        private synchronized long hedgeDelayNanos(HedgePolicy hedging) {
+            long minDelayNanos = hedging.minDelay().toNanos();
+            if (hedging.percentile() == null || count < MIN_SAMPLES) {
+                return minDelayNanos;
+            }
+            if (percentileNanos < 0 || !hedging.percentile().equals(percentile)) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(hedging.percentile() / 100 * count) - 1;
+                percentileNanos = sorted[Math.max(0, Math.min(rank, count - 1))];
+                percentile = hedging.percentile();
+            }
+            return Math.max(minDelayNanos, percentileNanos);
+        }
+    }
+
+    /**
+     * An Elasticsearch node with its circuit breaker.
+     */
+    private final class Node {
+        private final URI uri;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean probing;
+
+        private Node(URI uri) {
+            this.uri = uri;
+        }
+
+        private URI resolve(URI requestUri) {
+            return UriComponentsBuilder.fromUri(requestUri)
+                    .scheme(uri.getScheme())
+                    .host(uri.getHost())
+                    .port(uri.getPort())
+                    .build(true)
+                    .toUri();
+        }
+
+        /**
+         * Returns whether a request may be sent to this node: always while the breaker is closed,
+         * and a single probe once it has been open for the open duration.
+         */
+        private synchronized boolean allowRequest() {
+            if (consecutiveFailures < policy.failureThreshold()) {
+                return true;
+            }
+            if (probing || System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            probing = true;
+            return true;
+        }
+
+        private synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            probing = false;
+        }
+
+        private synchronized void onFailure() {
+            consecutiveFailures++;
+            probing = false;
+            if (consecutiveFailures >= policy.failureThreshold()) {
+                openUntilNanos = System.nanoTime() + policy.openDuration().toNanos();
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.nischie.elasticrestclient.client;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Spliterator over the pages of a scroll, fetching the next page only when the current one is consumed.
+ * <p>
+ * Pages have to be fetched one after the other, so a split hands the rest of the current page to
+ * another spliterator, which is split further by halves, while this spliterator keeps the scroll.
+ * A parallel stream thereby processes fetched pages on the fork-join pool while the next page is fetched.
+ *
+ * @param <T> the type of the hits
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+class ScrollSpliterator<T> implements Spliterator<T> {
+    private final Supplier<List<T>> pages;
+    private List<T> page = List.of();
+    private int position;
+    private boolean exhausted;
+
+    /**
+     * Constructs a ScrollSpliterator over the given pages.
+     *
+     * @param pages supplies the next page of hits, or an empty page at the end of the scroll
+     */
+    ScrollSpliterator(Supplier<List<T>> pages) {
+        this.pages = pages;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!fill()) {
+            return false;
+        }
+        action.accept(page.get(position++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (fill()) {
+            while (position < page.size()) {
+                action.accept(page.get(position++));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!fill()) {
+            return null;
+        }
+        Spliterator<T> split = page.subList(position, page.size()).spliterator();
+        page = List.of();
+        position = 0;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private boolean fill() {
+        while (position >= page.size()) {
+            if (exhausted) {
+                return false;
+            }
+            page = pages.get();
+            position = 0;
+            exhausted = page.isEmpty();
+        }
+        return true;
+    }
+}
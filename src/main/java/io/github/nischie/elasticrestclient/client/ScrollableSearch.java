@@ -1,29 +1,44 @@
 package io.github.nischie.elasticrestclient.client;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocumentSearchResult;
 import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.queries.SearchParams;
 import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
-import io.github.nischie.elasticrestclient.util.JsonUtil;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
+import io.github.nischie.elasticrestclient.util.SearchHitReader;
+import org.springframework.http.HttpMethod;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility for performing scrollable search operations in Elasticsearch.
  * <p>
- * Handles scroll context and pagination for large result sets.
+ * Handles scroll context and pagination for large result sets, either page by page with {@link #scroll()}
+ * or as a lazy {@link java.util.stream.Stream} of hits.
  *
  * @author nschieschke
  * @version $Id: $Id
  */
-public class ScrollableSearch {
+public class ScrollableSearch implements AutoCloseable {
     private final RestClient restClient;
+    private final JsonCodec codec;
     private StringSearchQuery query;
     private Index index;
     private ElasticDocumentSearchResult elasticDocumentSearchResult;
     private int pageSize;
+    private SearchParams params = SearchParams.none();
+    private String scrollId;
+    private boolean closed;
 
     /**
      * Constructs a ScrollableSearch for the given index, query, and page size.
@@ -35,12 +50,42 @@ public class ScrollableSearch {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public ScrollableSearch(RestClient restClient, Index index, StringSearchQuery query, int pageSize) throws JsonProcessingException {
+        this(restClient, JsonCodec.defaultCodec(), index, query, pageSize);
+    }
+
+    /**
+     * Constructs a ScrollableSearch for the given index, query, and page size, using the given JsonCodec.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec      the JsonCodec to use for serialization
+     * @param index      the index to search in
+     * @param query      the search query
+     * @param pageSize   the number of results per page
+     */
+    public ScrollableSearch(RestClient restClient, JsonCodec codec, Index index, StringSearchQuery query, int pageSize) {
         this.restClient = restClient;
+        this.codec = codec;
         this.index = index;
         this.pageSize = pageSize;
         this.query = query;
     }
 
+    /**
+     * Constructs a ScrollableSearch for the given index, query, and page size, using the given JsonCodec,
+     * searching only the shards selected by the given routing and preference.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     * @param codec      the JsonCodec to use for serialization
+     * @param index      the index to search in
+     * @param query      the search query
+     * @param pageSize   the number of results per page
+     * @param params     the routing keys and shard copy preference
+     */
+    public ScrollableSearch(RestClient restClient, JsonCodec codec, Index index, StringSearchQuery query, int pageSize, SearchParams params) {
+        this(restClient, codec, index, query, pageSize);
+        this.params = params;
+    }
+
     /**
      * Directly returns the search hits for this scroll page.
      *
@@ -61,29 +106,106 @@ public class ScrollableSearch {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public boolean scroll() throws JsonProcessingException {
-        if (elasticDocumentSearchResult == null) {
-            // Initial search
-            elasticDocumentSearchResult = restClient
-                    .post()
-                    .uri(index._index() + "/_search?scroll=1m&size=%d".formatted(pageSize))
-                    .body(JsonUtil.serialize(query))
-                    .retrieve()
-                    .body(ElasticDocumentSearchResult.class);
-        } else {
-            // Scroll using scroll_id
-            var scrollSearchQuery = """
-                    {
-                       "scroll": "1m",
-                       "scroll_id": "%s"
-                    }
-                """.formatted(elasticDocumentSearchResult.scrollId());
-            elasticDocumentSearchResult = restClient
-                    .post()
+        if (closed) {
+            return false;
+        }
+        elasticDocumentSearchResult = nextPageRequest()
+                .retrieve()
+                .body(ElasticDocumentSearchResult.class);
+        scrollId = elasticDocumentSearchResult.scrollId();
+        return elasticDocumentSearchResult.searchHits() != null && !elasticDocumentSearchResult.searchHits().isEmpty();
+    }
+
+    /**
+     * Returns the remaining search hits as a lazy stream. Pages are fetched when the stream needs them,
+     * and a parallel stream processes each fetched page on the fork-join pool while the next page is fetched.
+     * The scroll context is released when the last page has been read or the stream is closed.
+     *
+     * @return a stream of the search hits
+     */
+    public Stream<ElasticDocument> stream() {
+        return StreamSupport.stream(new ScrollSpliterator<>(() -> {
+            try {
+                return scroll() ? getSearchHits() : endOfScroll();
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("Failed to serialize scroll query", e);
+            }
+        }), false).onClose(this::close);
+    }
+
+    /**
+     * Returns the remaining search hits as a lazy stream of documents of the given type, decoded
+     * directly from the response with the codec of the type. Behaves like {@link #stream()}.
+     *
+     * @param clazz the document class
+     * @param <T> the type of the documents
+     * @return a stream of the documents
+     */
+    public <T> Stream<T> stream(Class<T> clazz) {
+        return StreamSupport.stream(new ScrollSpliterator<>(() -> {
+            if (closed) {
+                return List.of();
+            }
+            List<T> documents = new ArrayList<>();
+            try {
+                byte[] response = nextPageRequest()
+                        .retrieve()
+                        .body(byte[].class);
+                try (JsonParser parser = codec.objectMapper().getFactory().createParser(response)) {
+                    scrollId = SearchHitReader.read(parser, (index, id, sourceParser) -> documents.add(codec.read(sourceParser, clazz))).scrollId();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read scroll page", e);
+            }
+            return documents.isEmpty() ? endOfScroll() : documents;
+        }), false).onClose(this::close);
+    }
+
+    /**
+     * Releases the scroll context on the server. Further calls to {@link #scroll()} return false.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            restClient.method(HttpMethod.DELETE)
                     .uri("/_search/scroll")
-                    .body(scrollSearchQuery)
+                    .body(Map.of("scroll_id", scrollId))
                     .retrieve()
-                    .body(ElasticDocumentSearchResult.class);
+                    .toBodilessEntity();
+        } catch (RuntimeException e) {
+            // the scroll context expires on its own
         }
-        return elasticDocumentSearchResult.searchHits() != null && !elasticDocumentSearchResult.searchHits().isEmpty();
+        scrollId = null;
+    }
+
+    private <T> List<T> endOfScroll() {
+        close();
+        return List.of();
+    }
+
+    private RestClient.RequestBodySpec nextPageRequest() throws JsonProcessingException {
+        if (scrollId == null) {
+            // Initial search
+            return restClient
+                    .post()
+                    .uri(index._index() + "/_search?scroll=1m&size=%d".formatted(pageSize)
+                            + (params.toQueryParams().isEmpty() ? "" : "&" + params.toQueryParams()))
+                    .body(codec.serialize(query));
+        }
+        // Scroll using scroll_id
+        var scrollSearchQuery = """
+                {
+                   "scroll": "1m",
+                   "scroll_id": "%s"
+                }
+            """.formatted(scrollId);
+        return restClient
+                .post()
+                .uri("/_search/scroll")
+                .body(scrollSearchQuery);
     }
 }
@@ -0,0 +1,83 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.model.Index;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Represents a client-side slow-query log of searches and counts.
+ * <p>
+ * Each search or count whose call took longer than the threshold is reported to the listener, with the
+ * time Elasticsearch spent on it, the wall-clock latency until the response was received and the time
+ * spent parsing the response. A latency far above {@code took} points to the network or queueing,
+ * a long parse time to large responses or expensive document mapping.
+ * <p>
+ * With profiling, a slow query is run once more with {@code "profile": true} before it is reported,
+ * so the entry carries the per-shard timings of its query and collectors. The profiled run adds to the
+ * latency of the slow call and to the load of the cluster, so it is meant for diagnosis, not for production.
+ *
+ * @param threshold the duration above which a call is reported
+ * @param profile   whether slow queries are run again with profiling to attach the per-shard profile
+ * @param listener  the receiver of the slow-query entries, called on the thread of the slow call;
+ *                  exceptions it throws are ignored, so they do not fail the reported query
+ */
+public record SlowQueryLog(
+        Duration threshold,
+        boolean profile,
+        Consumer<Entry> listener
+) {
+    /**
+     * Creates a SlowQueryLog reporting calls slower than the given threshold, without profiling.
+     *
+     * @param threshold the duration above which a call is reported
+     * @param listener the receiver of the slow-query entries
+     * @return a new SlowQueryLog
+     */
+    public static SlowQueryLog of(Duration threshold, Consumer<Entry> listener) {
+        return new SlowQueryLog(threshold, false, listener);
+    }
+
+    /**
+     * Returns a copy of this log that runs slow queries again with profiling and attaches the profile.
+     *
+     * @return a new SlowQueryLog instance
+     */
+    public SlowQueryLog withProfile() {
+        return new SlowQueryLog(threshold, true, listener);
+    }
+
+    /**
+     * A slow search or count.
+     *
+     * @param operation     the endpoint of the call, {@code _search} or {@code _count}
+     * @param index         the index searched
+     * @param query         the serialized request body
+     * @param took          the time Elasticsearch spent on the request in milliseconds, or null if not returned
+     * @param latency       the wall-clock time from sending the request until the response was received
+     * @param responseBytes the size of the response body in bytes
+     * @param parseTime     the time spent parsing the response
+     * @param shardProfiles the {@code profile.shards} of the profiled run, or null if not profiled or it failed
+     */
+    public record Entry(
+            String operation,
+            Index index,
+            String query,
+            Long took,
+            Duration latency,
+            long responseBytes,
+            Duration parseTime,
+            List<Map<String, Object>> shardProfiles
+    ) {
+        /**
+         * Returns the total duration of the call, latency and parse time.
+         *
+         * @return the duration of the call
+         */
+        public Duration duration() {
+            return latency.plus(parseTime);
+        }
+    }
+}
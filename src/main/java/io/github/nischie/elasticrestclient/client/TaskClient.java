@@ -0,0 +1,87 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.model.TaskId;
+import io.github.nischie.elasticrestclient.domain.tasks.TaskStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+/**
+ * Client for task operations in Elasticsearch.
+ * <p>
+ * Provides methods for polling, rethrottling and cancelling long-running tasks
+ * such as update-by-query, delete-by-query and reindex.
+ * Uses Spring's RestClient for HTTP communication.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class TaskClient {
+    private final RestClient restClient;
+
+    /**
+     * Constructs a TaskClient with the given RestClient.
+     *
+     * @param restClient the RestClient to use for HTTP operations
+     */
+    public TaskClient(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    /**
+     * Returns the current status of the specified task.
+     *
+     * @param taskId the task ID
+     * @return the status of the task, including its progress counters
+     */
+    public TaskStatus getTask(TaskId taskId) {
+        return restClient.get()
+                .uri("_tasks/" + taskId._task())
+                .retrieve()
+                .body(TaskStatus.class);
+    }
+
+    /**
+     * Cancels the specified task.
+     *
+     * @param taskId the task ID
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> cancel(TaskId taskId) {
+        return restClient.post()
+                .uri("_tasks/" + taskId._task() + "/_cancel")
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Changes the throttle of a running update-by-query, delete-by-query or reindex task.
+     *
+     * @param endpoint the endpoint that started the task, e.g. {@code _update_by_query}
+     * @param taskId the task ID
+     * @param requestsPerSecond the new throttle in sub-requests per second, -1 to disable throttling
+     * @return the response entity of the rest request
+     */
+    public ResponseEntity<Map> rethrottle(String endpoint, TaskId taskId, float requestsPerSecond) {
+        return restClient.post()
+                .uri(endpoint + "/" + taskId._task() + "/_rethrottle?requests_per_second=" + requestsPerSecond)
+                .retrieve()
+                .toEntity(Map.class);
+    }
+
+    /**
+     * Creates a handle for a task started from the given endpoint, based on the response of the
+     * request with {@code wait_for_completion=false}.
+     *
+     * @param endpoint the endpoint that started the task, e.g. {@code _update_by_query}
+     * @param response the response body containing the {@code task} field
+     * @return a handle for the started task
+     */
+    TaskHandle handle(String endpoint, Map<?, ?> response) {
+        if (response == null || response.get("task") == null) {
+            throw new RuntimeException("No task returned by " + endpoint + ": " + response);
+        }
+        return new TaskHandle(this, endpoint, TaskId.of(response.get("task").toString()));
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.model.TaskId;
+import io.github.nischie.elasticrestclient.domain.tasks.TaskStatus;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Handle for a long-running task started with {@code wait_for_completion=false}.
+ * <p>
+ * Allows polling the progress of the task, changing its throttle, cancelling it,
+ * and waiting for its completion.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class TaskHandle {
+    private final TaskClient taskClient;
+    private final String endpoint;
+    private final TaskId taskId;
+
+    /**
+     * Constructs a TaskHandle for the given task.
+     *
+     * @param taskClient the TaskClient to use for task operations
+     * @param endpoint the endpoint that started the task, e.g. {@code _update_by_query}
+     * @param taskId the task ID
+     */
+    public TaskHandle(TaskClient taskClient, String endpoint, TaskId taskId) {
+        this.taskClient = taskClient;
+        this.endpoint = endpoint;
+        this.taskId = taskId;
+    }
+
+    /**
+     * Returns the ID of the task.
+     *
+     * @return the task ID
+     */
+    public TaskId taskId() {
+        return taskId;
+    }
+
+    /**
+     * Returns the current status of the task.
+     *
+     * @return the status of the task, including its progress counters
+     */
+    public TaskStatus status() {
+        return taskClient.getTask(taskId);
+    }
+
+    /**
+     * Changes the throttle of the running task.
+     *
+     * @param requestsPerSecond the new throttle in sub-requests per second, -1 to disable throttling
+     */
+    public void rethrottle(float requestsPerSecond) {
+        taskClient.rethrottle(endpoint, taskId, requestsPerSecond);
+    }
+
+    /**
+     * Cancels the task.
+     */
+    public void cancel() {
+        taskClient.cancel(taskId);
+    }
+
+    /**
+     * Polls the task until it has completed.
+     *
+     * @param pollInterval the interval between two polls
+     * @return the final status of the task
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     */
+    public TaskStatus awaitCompletion(Duration pollInterval) throws InterruptedException {
+        return awaitCompletion(pollInterval, status -> {});
+    }
+
+    /**
+     * Polls the task until it has completed, reporting each intermediate status to the given listener.
+     *
+     * @param pollInterval the interval between two polls
+     * @param progressListener the listener receiving each polled status
+     * @return the final status of the task
+     * @throws java.lang.InterruptedException if interrupted while waiting
+     * @throws java.lang.RuntimeException if the task finished with an error or failed documents
+     */
+    public TaskStatus awaitCompletion(Duration pollInterval, Consumer<TaskStatus> progressListener) throws InterruptedException {
+        TaskStatus status = status();
+        progressListener.accept(status);
+        while (!status.completed()) {
+            Thread.sleep(pollInterval.toMillis());
+            status = status();
+            progressListener.accept(status);
+        }
+        if (status.failed()) {
+            throw new RuntimeException("Task " + taskId._task() + " failed: " +
+                    (status.error() != null ? status.error() : status.response().get("failures")));
+        }
+        return status;
+    }
+}
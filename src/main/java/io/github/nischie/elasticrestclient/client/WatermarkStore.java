@@ -0,0 +1,62 @@
+package io.github.nischie.elasticrestclient.client;
+
+import io.github.nischie.elasticrestclient.domain.model.Watermark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Persistent storage of the watermark of a {@link ChangeReader}, so reading resumes after a restart.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public interface WatermarkStore {
+    /**
+     * Loads the stored watermark.
+     *
+     * @return the watermark, or null if none was stored and all documents are to be read
+     * @throws java.io.IOException if the watermark cannot be read
+     */
+    Watermark load() throws IOException;
+
+    /**
+     * Stores the watermark, replacing the previous one.
+     *
+     * @param watermark the watermark to store
+     * @throws java.io.IOException if the watermark cannot be written
+     */
+    void save(Watermark watermark) throws IOException;
+
+    /**
+     * Returns a store keeping the watermark in memory only, starting without a watermark.
+     *
+     * @return a new in-memory WatermarkStore
+     */
+    static WatermarkStore inMemory() {
+        return new WatermarkStore() {
+            private volatile Watermark watermark;
+
+            @Override
+            public Watermark load() {
+                return watermark;
+            }
+
+            @Override
+            public void save(Watermark watermark) {
+                this.watermark = watermark;
+            }
+        };
+    }
+
+    /**
+     * Returns a store keeping the watermark in the given file. Each save is forced to disk and
+     * atomically replaces the file, so a crash leaves either the previous or the new watermark.
+     *
+     * @param file the file to store the watermark in
+     * @return a new file-based WatermarkStore
+     */
+    static WatermarkStore file(Path file) {
+        return new FileWatermarkStore(file);
+    }
+}
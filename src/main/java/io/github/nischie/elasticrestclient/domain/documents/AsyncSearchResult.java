@@ -0,0 +1,107 @@
+package io.github.nischie.elasticrestclient.domain.documents;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the state and the results so far of an async search.
+ * <p>
+ * While the search is running, the response holds the hits and aggregations reduced from the shards
+ * that have completed so far. A status request returns no response.
+ *
+ * @param id                   the ID of the search, or null if it completed within the wait and was not kept
+ * @param partial              whether the response is based on a part of the shards only
+ * @param running              whether the search is still running
+ * @param startTimeMillis      the start time of the search in epoch milliseconds
+ * @param expirationTimeMillis the time the results expire in epoch milliseconds
+ * @param response             the search response so far, or null for a status request
+ * @param error                the error of the search, if it failed
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AsyncSearchResult(
+        @Nullable @JsonProperty("id") String id,
+        @JsonProperty("is_partial") boolean partial,
+        @JsonProperty("is_running") boolean running,
+        @JsonProperty("start_time_in_millis") Long startTimeMillis,
+        @JsonProperty("expiration_time_in_millis") Long expirationTimeMillis,
+        @Nullable @JsonProperty("response") Response response,
+        @Nullable @JsonProperty("error") Map<String, Object> error
+) {
+    /**
+     * Returns the hits so far.
+     *
+     * @return the search hits, or an empty list if there is no response yet
+     */
+    public List<ElasticDocument> searchHits() {
+        return response == null || response.hits() == null || response.hits().hits() == null
+                ? List.of() : response.hits().hits();
+    }
+
+    /**
+     * Returns the aggregations reduced so far.
+     *
+     * @return the aggregations, or null if the search has none or there is no response yet
+     */
+    public Map<String, Object> aggregations() {
+        return response == null ? null : response.aggregations();
+    }
+
+    /**
+     * Returns the number of shards whose results are contained in the response.
+     *
+     * @return the number of successful shards, or 0 if there is no response yet
+     */
+    public int completedShards() {
+        return response == null || response.shards() == null ? 0 : response.shards().successful();
+    }
+
+    /**
+     * Represents the search response of an async search.
+     *
+     * @param took         the time spent on the search so far in milliseconds
+     * @param timedOut     whether the search timed out
+     * @param hits         the hits so far
+     * @param aggregations the aggregations so far
+     * @param shards       the shard counters
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Response(
+            @JsonProperty("took") Long took,
+            @JsonProperty("timed_out") boolean timedOut,
+            @JsonProperty("hits") Hits hits,
+            @Nullable @JsonProperty("aggregations") Map<String, Object> aggregations,
+            @JsonProperty("_shards") Shards shards
+    ) {}
+
+    /**
+     * Represents the hits of an async search response.
+     *
+     * @param total the total number of matching documents so far
+     * @param hits  the hits so far
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Hits(
+            @Nullable @JsonProperty("total") Map<String, Object> total,
+            @JsonProperty("hits") List<ElasticDocument> hits
+    ) {}
+
+    /**
+     * Represents the shard counters of an async search response.
+     *
+     * @param total      the number of shards searched
+     * @param successful the number of shards that completed successfully
+     * @param skipped    the number of shards skipped
+     * @param failed     the number of shards that failed
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Shards(
+            @JsonProperty("total") int total,
+            @JsonProperty("successful") int successful,
+            @JsonProperty("skipped") int skipped,
+            @JsonProperty("failed") int failed
+    ) {}
+}
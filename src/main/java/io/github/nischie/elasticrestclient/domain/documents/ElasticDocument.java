@@ -2,12 +2,15 @@ package io.github.nischie.elasticrestclient.domain.documents;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.nischie.elasticrestclient.domain.model.Id;
+import io.github.nischie.elasticrestclient.domain.model.SeqNoPrimaryTerm;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
 import io.github.nischie.elasticrestclient.util.JsonUtil;
+import io.github.nischie.elasticrestclient.util.SourceDeserializer;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,11 +19,15 @@ import java.util.Map;
  * Contains metadata and the document source as a map.
  * Provides utility methods for converting the document to JSON and mapping the source to POJOs.
  *
- * @param index   the name of the index the document belongs to
- * @param id      the unique identifier of the document
- * @param version the version number of the document
- * @param type    the type of the document (usually "_doc")
- * @param source  the source content of the document as a map
+ * @param index       the name of the index the document belongs to
+ * @param id          the unique identifier of the document
+ * @param version     the version number of the document
+ * @param type        the type of the document (usually "_doc")
+ * @param seqNo       the sequence number of the document revision
+ * @param primaryTerm the primary term of the document revision
+ * @param routing     the custom routing key of the document, or null if routed by ID
+ * @param source      the source content of the document as a map, with the vector fields declared in the
+ *                    {@link JsonCodec} as {@code float[]}
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record ElasticDocument(
@@ -28,12 +35,39 @@ public record ElasticDocument(
         @JsonProperty("_id") String id,
         @JsonProperty("_version") Integer version,
         @JsonProperty("_type") String type,
-        @JsonProperty("_source") Map<String, Object> source
+        @JsonProperty("_seq_no") Long seqNo,
+        @JsonProperty("_primary_term") Long primaryTerm,
+        @JsonProperty("_routing") String routing,
+        @JsonProperty("_source") @JsonDeserialize(using = SourceDeserializer.class) Map<String, Object> source
 ) {
+    /**
+     * Constructs an ElasticDocument without revision and routing, as before they were added.
+     *
+     * @param index   the name of the index the document belongs to
+     * @param id      the unique identifier of the document
+     * @param version the version number of the document
+     * @param type    the type of the document (usually "_doc")
+     * @param source  the source content of the document as a map
+     */
+    public ElasticDocument(String index, String id, Integer version, String type, Map<String, Object> source) {
+        this(index, id, version, type, null, null, null, source);
+    }
 
-    private static final ObjectMapper MAPPER = new ObjectMapper()
-            .registerModule(new JavaTimeModule())
-            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    /**
+     * Constructs an ElasticDocument without routing, as before it was added.
+     *
+     * @param index       the name of the index the document belongs to
+     * @param id          the unique identifier of the document
+     * @param version     the version number of the document
+     * @param type        the type of the document (usually "_doc")
+     * @param seqNo       the sequence number of the document revision
+     * @param primaryTerm the primary term of the document revision
+     * @param source      the source content of the document as a map
+     */
+    public ElasticDocument(String index, String id, Integer version, String type, Long seqNo, Long primaryTerm,
+                           Map<String, Object> source) {
+        this(index, id, version, type, seqNo, primaryTerm, null, source);
+    }
 
     /**
      * Converts the entire document (including metadata) to a Jackson ObjectNode.
@@ -41,26 +75,79 @@ public record ElasticDocument(
      * @return a Jackson ObjectNode representation of the document
      */
     public ObjectNode toJSON() {
-        ObjectNode json = MAPPER.createObjectNode();
+        ObjectNode json = JsonCodec.defaultCodec().objectMapper().createObjectNode();
         if (index != null) json.put("_index", index);
         if (id != null) json.put("_id", id);
         if (version != null) json.put("_version", version);
         if (type != null) json.put("_type", type);
-        if (source != null) json.set("_source", MAPPER.valueToTree(source));
+        if (seqNo != null) json.put("_seq_no", seqNo);
+        if (primaryTerm != null) json.put("_primary_term", primaryTerm);
+        if (routing != null) json.put("_routing", routing);
+        if (source != null) json.set("_source", JsonCodec.defaultCodec().objectMapper().valueToTree(source));
         return json;
     }
 
+    /**
+     * Returns the ID of this document including its routing key, e.g. to update or delete a custom-routed hit.
+     *
+     * @return the document ID
+     */
+    public Id docId() {
+        return Id.of(id, routing);
+    }
+
+    /**
+     * Returns a dense-vector field of the source as a primitive array.
+     * Fields declared with {@link JsonCodec#vectorFields(String...)} are returned as read; other numeric arrays are converted.
+     *
+     * @param field the dotted path of the field, e.g. {@code chunk.embedding}
+     * @return the vector, or null if the source has no such field
+     */
+    public float[] vector(String field) {
+        Object value = source;
+        for (String name : field.split("\\.")) {
+            if (!(value instanceof Map<?, ?> object)) {
+                return null;
+            }
+            value = object.get(name);
+        }
+        if (value instanceof float[] vector) {
+            return vector;
+        }
+        if (value instanceof List<?> list) {
+            float[] vector = new float[list.size()];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = ((Number) list.get(i)).floatValue();
+            }
+            return vector;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the revision of this document for optimistic concurrency control.
+     *
+     * @return the sequence number and primary term, or null if they were not returned
+     */
+    public SeqNoPrimaryTerm seqNoPrimaryTerm() {
+        if (seqNo == null || primaryTerm == null) {
+            return null;
+        }
+        return SeqNoPrimaryTerm.of(seqNo, primaryTerm);
+    }
+
     /**
      * Converts the document source to a Jackson ObjectNode.
      *
      * @return a Jackson ObjectNode representation of the source map
      */
     public ObjectNode sourceAsJSON() {
-        return MAPPER.valueToTree(source);
+        return JsonCodec.defaultCodec().objectMapper().valueToTree(source);
     }
 
     /**
      * Maps the document source to a POJO of the specified class.
+     * Uses the {@link io.github.nischie.elasticrestclient.util.DocumentCodec} registered for the class, if any.
      *
      * @param clazz the target class to map the source to
      * @param <T>   the type of the target class
@@ -73,4 +160,16 @@ public record ElasticDocument(
             throw new RuntimeException("Failed to map source to POJO", e);
         }
     }
+
+    /**
+     * Maps the document source to a POJO of the specified class using the given JsonCodec.
+     *
+     * @param clazz the target class to map the source to
+     * @param codec the JsonCodec to use for the mapping
+     * @param <T>   the type of the target class
+     * @return an instance of the target class populated with source data
+     */
+    public <T> T sourceAs(Class<T> clazz, JsonCodec codec) {
+        return codec.convertSourceToPojo(source, clazz);
+    }
 }
@@ -0,0 +1,40 @@
+package io.github.nischie.elasticrestclient.domain.documents;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a search hit whose source is kept as the raw, unparsed JSON bytes of the response.
+ * <p>
+ * The source is a read-only view into the response buffer, so no bytes are copied until
+ * {@link #sourceBytes()} or {@link #sourceAsString()} is called.
+ *
+ * @param index  the name of the index the document belongs to
+ * @param id     the unique identifier of the document
+ * @param source the UTF-8 encoded JSON source of the document
+ */
+public record RawDocument(
+        String index,
+        String id,
+        ByteBuffer source
+) {
+    /**
+     * Returns a copy of the source bytes.
+     *
+     * @return the UTF-8 encoded JSON source
+     */
+    public byte[] sourceBytes() {
+        byte[] bytes = new byte[source.remaining()];
+        source.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the source as a JSON string.
+     *
+     * @return the JSON source
+     */
+    public String sourceAsString() {
+        return StandardCharsets.UTF_8.decode(source.duplicate()).toString();
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.nischie.elasticrestclient.domain.esql;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Represents the result of an ES|QL query as a batch of columns backed by primitive arrays.
+ * <p>
+ * Numeric, date and boolean columns hold their values in {@code long[]}, {@code double[]} and {@code boolean[]}
+ * arrays, string columns hold one code per row into a dictionary of their distinct values.
+ * Null cells are marked in a bit set per column; the value of a null cell in the array is unspecified.
+ *
+ * @param columns  the columns, in the order of the query
+ * @param rowCount the number of rows
+ * @param took     the time Elasticsearch spent on the query in milliseconds, or null if not returned
+ */
+public record EsqlResult(
+        List<Column> columns,
+        int rowCount,
+        Long took
+) {
+    /**
+     * Returns the column with the given name.
+     *
+     * @param name the name of the column
+     * @return the column
+     * @throws java.lang.IllegalArgumentException if the result has no such column
+     */
+    public Column column(String name) {
+        for (Column column : columns) {
+            if (column.name().equals(name)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("No column " + name + " in ES|QL result");
+    }
+
+    /**
+     * Returns the values of a long, integer, unsigned long or date column; dates are epoch milliseconds,
+     * unsigned longs of 2<sup>63</sup> and above are negative in two's complement.
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     */
+    public long[] longs(String name) {
+        return column(name, LongColumn.class).values();
+    }
+
+    /**
+     * Returns the values of a floating-point column.
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     */
+    public double[] doubles(String name) {
+        return column(name, DoubleColumn.class).values();
+    }
+
+    /**
+     * Returns the values of a boolean column.
+     *
+     * @param name the name of the column
+     * @return the values of the column
+     */
+    public boolean[] booleans(String name) {
+        return column(name, BooleanColumn.class).values();
+    }
+
+    /**
+     * Returns a dictionary-encoded string column, e.g. of a keyword, text or IP field.
+     *
+     * @param name the name of the column
+     * @return the column
+     */
+    public StringColumn strings(String name) {
+        return column(name, StringColumn.class);
+    }
+
+    private <C extends Column> C column(String name, Class<C> type) {
+        Column column = column(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " of type " + column.type()
+                    + " is a " + column.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * A column of an ES|QL result.
+     */
+    public sealed interface Column permits LongColumn, DoubleColumn, BooleanColumn, StringColumn {
+        /**
+         * Returns the name of the column.
+         *
+         * @return the column name
+         */
+        String name();
+
+        /**
+         * Returns the ES|QL type of the column, e.g. {@code long} or {@code keyword}.
+         *
+         * @return the column type
+         */
+        String type();
+
+        /**
+         * Returns the rows whose cell is null.
+         *
+         * @return the null rows
+         */
+        BitSet nulls();
+
+        /**
+         * Returns whether the cell of the given row is null.
+         *
+         * @param row the row
+         * @return true if the cell is null
+         */
+        default boolean isNull(int row) {
+            return nulls().get(row);
+        }
+    }
+
+    /**
+     * A column of long, integer, unsigned long or date values; dates are epoch milliseconds.
+     * Unsigned longs hold their 64 bits, so values of 2<sup>63</sup> and above are negative;
+     * read them with {@link java.lang.Long#toUnsignedString(long)}.
+     *
+     * @param name   the column name
+     * @param type   the ES|QL type
+     * @param values the values, one per row
+     * @param nulls  the null rows
+     */
+    public record LongColumn(String name, String type, long[] values, BitSet nulls) implements Column {}
+
+    /**
+     * A column of floating-point values.
+     *
+     * @param name   the column name
+     * @param type   the ES|QL type
+     * @param values the values, one per row
+     * @param nulls  the null rows
+     */
+    public record DoubleColumn(String name, String type, double[] values, BitSet nulls) implements Column {}
+
+    /**
+     * A column of boolean values.
+     *
+     * @param name   the column name
+     * @param type   the ES|QL type
+     * @param values the values, one per row
+     * @param nulls  the null rows
+     */
+    public record BooleanColumn(String name, String type, boolean[] values, BitSet nulls) implements Column {}
+
+    /**
+     * A dictionary-encoded column of string values.
+     *
+     * @param name       the column name
+     * @param type       the ES|QL type
+     * @param codes      the index into the dictionary per row, -1 for null cells
+     * @param dictionary the distinct values, in order of first occurrence
+     * @param nulls      the null rows
+     */
+    public record StringColumn(String name, String type, int[] codes, String[] dictionary, BitSet nulls) implements Column {
+        /**
+         * Returns the value of the given row.
+         *
+         * @param row the row
+         * @return the value, or null if the cell is null
+         */
+        public String get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary[code];
+        }
+    }
+}
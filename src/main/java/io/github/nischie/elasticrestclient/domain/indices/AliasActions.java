@@ -0,0 +1,73 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import io.github.nischie.elasticrestclient.domain.model.Index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the body of an Elasticsearch Aliases API request.
+ * <p>
+ * Collects add and remove actions which Elasticsearch applies atomically in a single request,
+ * so readers of an alias never see a state in between.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class AliasActions {
+    private final List<Map<String, Object>> actions = new ArrayList<>();
+
+    /**
+     * Creates a new, empty AliasActions instance.
+     *
+     * @return a new AliasActions instance
+     */
+    public static AliasActions create() {
+        return new AliasActions();
+    }
+
+    /**
+     * Adds an action that points the alias to the given index.
+     *
+     * @param index the index to add the alias to
+     * @param aliasName the name of the alias
+     * @return this AliasActions instance
+     */
+    public AliasActions add(Index index, String aliasName) {
+        actions.add(Map.of("add", Map.of("index", index._index(), "alias", aliasName)));
+        return this;
+    }
+
+    /**
+     * Adds an action that removes the alias from the given index.
+     *
+     * @param index the index to remove the alias from
+     * @param aliasName the name of the alias
+     * @return this AliasActions instance
+     */
+    public AliasActions remove(Index index, String aliasName) {
+        actions.add(Map.of("remove", Map.of("index", index._index(), "alias", aliasName)));
+        return this;
+    }
+
+    /**
+     * Adds an action that deletes the given index.
+     *
+     * @param index the index to delete
+     * @return this AliasActions instance
+     */
+    public AliasActions removeIndex(Index index) {
+        actions.add(Map.of("remove_index", Map.of("index", index._index())));
+        return this;
+    }
+
+    /**
+     * Returns the collected actions.
+     *
+     * @return the list of actions
+     */
+    public List<Map<String, Object>> getActions() {
+        return actions;
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import io.github.nischie.elasticrestclient.domain.model.Index;
+
+/**
+ * Represents the index settings that were replaced when an index entered bulk load mode.
+ * <p>
+ * A null value means that the setting was not set explicitly and is reset to the cluster default.
+ *
+ * @param index            the index in bulk load mode
+ * @param refreshInterval  the previous {@code index.refresh_interval}
+ * @param numberOfReplicas the previous {@code index.number_of_replicas}
+ */
+public record BulkLoadState(
+        Index index,
+        String refreshInterval,
+        String numberOfReplicas
+) {
+}
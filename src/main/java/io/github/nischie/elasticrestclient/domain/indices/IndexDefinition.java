@@ -0,0 +1,47 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents the body of a create index request, with settings and mappings.
+ * <p>
+ * Settings and mappings can be given as POJOs, Maps or Jackson ObjectNodes.
+ *
+ * @param settings the index settings, e.g. {@code number_of_shards} or {@code refresh_interval}
+ * @param mappings the index mappings
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IndexDefinition(
+        @JsonProperty("settings") Object settings,
+        @JsonProperty("mappings") Object mappings
+) {
+    /**
+     * Creates a new IndexDefinition with the given settings and mappings.
+     *
+     * @param settings the index settings
+     * @param mappings the index mappings
+     * @return a new IndexDefinition instance
+     */
+    public static IndexDefinition of(Object settings, Object mappings) {
+        return new IndexDefinition(settings, mappings);
+    }
+
+    /**
+     * Creates a new IndexDefinition with the given shard and replica count and mappings.
+     *
+     * @param numberOfShards   the number of primary shards
+     * @param numberOfReplicas the number of replicas per primary shard
+     * @param mappings         the index mappings
+     * @return a new IndexDefinition instance
+     */
+    public static IndexDefinition of(int numberOfShards, int numberOfReplicas, Object mappings) {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("number_of_shards", numberOfShards);
+        settings.put("number_of_replicas", numberOfReplicas);
+        return new IndexDefinition(settings, mappings);
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.Duration;
+
+/**
+ * Represents the conditions of a rollover request.
+ * <p>
+ * The write index of an alias or data stream is rolled over when any of the set conditions is met.
+ * Without any condition, the rollover happens unconditionally.
+ *
+ * @param maxAge              the maximum age of the write index since its creation, as time value, or null
+ * @param maxDocs             the maximum number of primary documents in the write index, or null
+ * @param maxSize             the maximum size of all primary shards of the write index, as byte value, or null
+ * @param maxPrimaryShardSize the maximum size of the largest primary shard of the write index, as byte value, or null
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RolloverConditions(
+        @JsonProperty("max_age") String maxAge,
+        @JsonProperty("max_docs") Long maxDocs,
+        @JsonProperty("max_size") String maxSize,
+        @JsonProperty("max_primary_shard_size") String maxPrimaryShardSize
+) {
+    /**
+     * Returns conditions without any condition set, so the rollover happens unconditionally.
+     *
+     * @return the empty RolloverConditions
+     */
+    public static RolloverConditions none() {
+        return new RolloverConditions(null, null, null, null);
+    }
+
+    /**
+     * Returns a copy of these conditions that rolls over once the write index is older than the given age.
+     *
+     * @param maxAge the maximum age of the write index
+     * @return a new RolloverConditions instance
+     */
+    public RolloverConditions maxAge(Duration maxAge) {
+        return new RolloverConditions(maxAge.toSeconds() + "s", maxDocs, maxSize, maxPrimaryShardSize);
+    }
+
+    /**
+     * Returns a copy of these conditions that rolls over once the write index holds the given number of documents.
+     *
+     * @param maxDocs the maximum number of primary documents
+     * @return a new RolloverConditions instance
+     */
+    public RolloverConditions maxDocs(long maxDocs) {
+        return new RolloverConditions(maxAge, maxDocs, maxSize, maxPrimaryShardSize);
+    }
+
+    /**
+     * Returns a copy of these conditions that rolls over once all primary shards together reach the given size.
+     *
+     * @param maxBytes the maximum size of all primary shards in bytes
+     * @return a new RolloverConditions instance
+     */
+    public RolloverConditions maxSize(long maxBytes) {
+        return new RolloverConditions(maxAge, maxDocs, maxBytes + "b", maxPrimaryShardSize);
+    }
+
+    /**
+     * Returns a copy of these conditions that rolls over once the largest primary shard reaches the given size.
+     * Bounding the shard size keeps merges and recoveries of old indices cheap; requires Elasticsearch 7.13+.
+     *
+     * @param maxBytes the maximum size of the largest primary shard in bytes
+     * @return a new RolloverConditions instance
+     */
+    public RolloverConditions maxPrimaryShardSize(long maxBytes) {
+        return new RolloverConditions(maxAge, maxDocs, maxSize, maxBytes + "b");
+    }
+}
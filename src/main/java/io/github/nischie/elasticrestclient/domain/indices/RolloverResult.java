@@ -0,0 +1,27 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+
+/**
+ * Represents the response of a rollover request.
+ *
+ * @param acknowledged whether the cluster acknowledged the rollover
+ * @param oldIndex     the write index before the rollover
+ * @param newIndex     the write index after the rollover, or the index that would have been created
+ * @param rolledOver   whether the rollover happened
+ * @param dryRun       whether the request was a dry run
+ * @param conditions   each evaluated condition, e.g. {@code [max_docs: 1000]}, and whether it was met
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RolloverResult(
+        @JsonProperty("acknowledged") boolean acknowledged,
+        @JsonProperty("old_index") String oldIndex,
+        @JsonProperty("new_index") String newIndex,
+        @JsonProperty("rolled_over") boolean rolledOver,
+        @JsonProperty("dry_run") boolean dryRun,
+        @JsonProperty("conditions") Map<String, Boolean> conditions
+) {
+}
@@ -0,0 +1,148 @@
+package io.github.nischie.elasticrestclient.domain.indices;
+
+import io.github.nischie.elasticrestclient.domain.model.Index;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Represents a family of time-partitioned indices, one per period, e.g. {@code logs-2024.05.17}.
+ * <p>
+ * Resolves the index of a document from its timestamp in UTC, like the {@code date_index_name} ingest processor
+ * does on the server. The index of the last resolved period is cached, so a stream of documents of the same
+ * period costs one comparison per document instead of formatting a date.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public final class TimeSeriesIndex {
+    private final String prefix;
+    private final ChronoUnit period;
+    private final DateTimeFormatter formatter;
+    private volatile Bucket last;
+
+    private record Bucket(long start, long end, Index index) {}
+
+    private TimeSeriesIndex(String prefix, ChronoUnit period, String datePattern) {
+        switch (period) {
+            case HOURS, DAYS, WEEKS, MONTHS, YEARS -> { }
+            default -> throw new IllegalArgumentException("Unsupported period of time series index: " + period);
+        }
+        this.prefix = prefix;
+        this.period = period;
+        this.formatter = DateTimeFormatter.ofPattern(datePattern).withZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Creates a TimeSeriesIndex with the given prefix, period and date pattern.
+     *
+     * @param prefix      the prefix of the index names, e.g. {@code logs-}
+     * @param period      the period of one index: hours, days, weeks, months or years
+     * @param datePattern the {@link DateTimeFormatter} pattern of the start of the period, e.g. {@code yyyy.MM.dd}
+     * @return a new TimeSeriesIndex
+     */
+    public static TimeSeriesIndex of(String prefix, ChronoUnit period, String datePattern) {
+        return new TimeSeriesIndex(prefix, period, datePattern);
+    }
+
+    /**
+     * Creates a TimeSeriesIndex with one index per hour, e.g. {@code logs-2024.05.17.13}.
+     *
+     * @param prefix the prefix of the index names
+     * @return a new TimeSeriesIndex
+     */
+    public static TimeSeriesIndex hourly(String prefix) {
+        return of(prefix, ChronoUnit.HOURS, "yyyy.MM.dd.HH");
+    }
+
+    /**
+     * Creates a TimeSeriesIndex with one index per day, e.g. {@code logs-2024.05.17}.
+     *
+     * @param prefix the prefix of the index names
+     * @return a new TimeSeriesIndex
+     */
+    public static TimeSeriesIndex daily(String prefix) {
+        return of(prefix, ChronoUnit.DAYS, "yyyy.MM.dd");
+    }
+
+    /**
+     * Creates a TimeSeriesIndex with one index per month, e.g. {@code logs-2024.05}.
+     *
+     * @param prefix the prefix of the index names
+     * @return a new TimeSeriesIndex
+     */
+    public static TimeSeriesIndex monthly(String prefix) {
+        return of(prefix, ChronoUnit.MONTHS, "yyyy.MM");
+    }
+
+    /**
+     * Returns the wildcard pattern matching all indices of this time series, e.g. for searches or index templates.
+     *
+     * @return the index pattern, e.g. {@code logs-*}
+     */
+    public String pattern() {
+        return prefix + "*";
+    }
+
+    /**
+     * Returns the index of the period containing the given timestamp.
+     *
+     * @param timestamp the timestamp of the document
+     * @return the index to write the document to
+     */
+    public Index indexFor(Instant timestamp) {
+        long millis = timestamp.toEpochMilli();
+        Bucket bucket = last;
+        if (bucket == null || millis < bucket.start() || millis >= bucket.end()) {
+            ZonedDateTime start = periodStart(timestamp.atZone(ZoneOffset.UTC));
+            bucket = new Bucket(start.toInstant().toEpochMilli(), start.plus(1, period).toInstant().toEpochMilli(),
+                    Index.of(prefix + formatter.format(start)));
+            last = bucket;
+        }
+        return bucket.index();
+    }
+
+    /**
+     * Returns the index of the period containing the given timestamp field value.
+     * Accepts an {@link Instant} or other temporal with an instant, epoch milliseconds as number or string,
+     * and ISO-8601 instants like {@code 2024-05-17T13:45:00Z}.
+     *
+     * @param timestamp the value of the timestamp field of the document
+     * @return the index to write the document to
+     * @throws java.lang.IllegalArgumentException if the value is null or not a timestamp
+     */
+    public Index indexFor(Object timestamp) {
+        if (timestamp instanceof Instant instant) {
+            return indexFor(instant);
+        }
+        if (timestamp instanceof TemporalAccessor temporal) {
+            return indexFor(Instant.from(temporal));
+        }
+        if (timestamp instanceof Number millis) {
+            return indexFor(Instant.ofEpochMilli(millis.longValue()));
+        }
+        if (timestamp instanceof CharSequence text) {
+            String value = text.toString();
+            return indexFor(!value.isEmpty() && value.chars().allMatch(Character::isDigit)
+                    ? Instant.ofEpochMilli(Long.parseLong(value))
+                    : Instant.parse(value));
+        }
+        throw new IllegalArgumentException("Not a timestamp: " + timestamp);
+    }
+
+    private ZonedDateTime periodStart(ZonedDateTime time) {
+        return switch (period) {
+            case HOURS -> time.truncatedTo(ChronoUnit.HOURS);
+            case WEEKS -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case YEARS -> time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            default -> time.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+}
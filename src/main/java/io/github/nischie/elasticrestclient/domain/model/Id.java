@@ -6,10 +6,22 @@ import java.util.UUID;
  * Represents a document ID in Elasticsearch.
  * <p>
  * Wraps a string value and provides a constructor for UUIDs.
+ * An optional routing key selects the shard of the document instead of the ID;
+ * a document indexed with a routing key can only be read, updated and deleted with the same key.
  *
- * @param _id the string representation of the document ID
+ * @param _id     the string representation of the document ID
+ * @param routing the routing key of the document, or null to route by ID
  */
-public record Id(String _id) {
+public record Id(String _id, String routing) {
+    /**
+     * Constructs an Id routed by the ID itself.
+     *
+     * @param _id the string representation of the document ID
+     */
+    public Id(String _id) {
+        this(_id, null);
+    }
+
     /**
      * Constructs an Id from a UUID.
      *
@@ -28,4 +40,34 @@ public record Id(String _id) {
     public static Id of(String id) {
         return new Id(id);
     }
+
+    /**
+     * Creates a new Id instance with a custom routing key.
+     *
+     * @param id the string value for the document ID
+     * @param routing the routing key of the document
+     * @return a new Id instance
+     */
+    public static Id of(String id, String routing) {
+        return new Id(id, routing);
+    }
+
+    /**
+     * Returns a copy of this Id with the given routing key.
+     *
+     * @param routing the routing key of the document, or null to route by ID
+     * @return a new Id instance
+     */
+    public Id withRouting(String routing) {
+        return new Id(_id, routing);
+    }
+
+    /**
+     * Returns the query string parameter for the routing key.
+     *
+     * @return the routing parameter without leading {@code ?}, or an empty string if routed by ID
+     */
+    public String toQueryParams() {
+        return routing == null ? "" : "routing=" + routing;
+    }
 }
@@ -0,0 +1,44 @@
+package io.github.nischie.elasticrestclient.domain.model;
+
+/**
+ * Represents when the changes of a write operation become visible to search.
+ */
+public enum Refresh {
+    /**
+     * Do not refresh; changes become visible with the next periodic refresh. Best indexing throughput.
+     */
+    FALSE("false"),
+    /**
+     * Wait until a periodic refresh has made the changes visible before responding, without forcing a refresh.
+     */
+    WAIT_FOR("wait_for"),
+    /**
+     * Refresh the affected shards immediately, so the changes are visible when the request returns.
+     * Creates small segments, so it is expensive for frequent writes.
+     */
+    TRUE("true");
+
+    private final String value;
+
+    Refresh(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Returns the value of the refresh parameter.
+     *
+     * @return the parameter value
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * Returns the query string parameter for this refresh policy.
+     *
+     * @return the refresh parameter without leading {@code ?}, or an empty string for {@link #FALSE}
+     */
+    public String toQueryParams() {
+        return this == FALSE ? "" : "refresh=" + value;
+    }
+}
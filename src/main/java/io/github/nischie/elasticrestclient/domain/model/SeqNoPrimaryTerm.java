@@ -0,0 +1,32 @@
+package io.github.nischie.elasticrestclient.domain.model;
+
+/**
+ * Represents the sequence number and primary term of a document revision in Elasticsearch.
+ * <p>
+ * Used for optimistic concurrency control: a write conditioned on a SeqNoPrimaryTerm only
+ * succeeds if the document has not been changed since this revision was read.
+ *
+ * @param seqNo       the sequence number of the document revision
+ * @param primaryTerm the primary term of the document revision
+ */
+public record SeqNoPrimaryTerm(long seqNo, long primaryTerm) {
+    /**
+     * Creates a new SeqNoPrimaryTerm instance from the given sequence number and primary term.
+     *
+     * @param seqNo       the sequence number of the document revision
+     * @param primaryTerm the primary term of the document revision
+     * @return a new SeqNoPrimaryTerm instance
+     */
+    public static SeqNoPrimaryTerm of(long seqNo, long primaryTerm) {
+        return new SeqNoPrimaryTerm(seqNo, primaryTerm);
+    }
+
+    /**
+     * Returns the query string parameters for a conditional write on this revision.
+     *
+     * @return the {@code if_seq_no} and {@code if_primary_term} parameters
+     */
+    public String toQueryParams() {
+        return "if_seq_no=" + seqNo + "&if_primary_term=" + primaryTerm;
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.nischie.elasticrestclient.domain.model;
+
+/**
+ * Represents the ID of a task running in Elasticsearch.
+ * <p>
+ * The ID has the format {@code nodeId:taskNumber}, as returned by requests with
+ * {@code wait_for_completion=false}.
+ *
+ * @param _task the string representation of the task ID
+ */
+public record TaskId(String _task) {
+    /**
+     * Creates a new TaskId instance from the given string value.
+     *
+     * @param taskId the string value for the task ID
+     * @return a new TaskId instance
+     */
+    public static TaskId of(String taskId) {
+        return new TaskId(taskId);
+    }
+}
@@ -2,17 +2,29 @@ package io.github.nischie.elasticrestclient.domain.model;
 
 /**
  * Represents a value in the domain model.
+ * <p>
+ * The value keeps its type, so numbers, booleans, lists or maps are written
+ * to Elasticsearch as such and not as strings.
  *
- * @param value the string representation of the value
+ * @param object the value
  */
-public record Value(String value) {
+public record Value(Object object) {
     /**
-     * Creates a new Value instance using the given string representation.
+     * Creates a new Value instance using the given value.
      *
-     * @param value the string representation of the value
+     * @param value the value
      * @return a new Value instance
      */
-    public static Value of(String value) {
+    public static Value of(Object value) {
         return new Value(value);
     }
+
+    /**
+     * Returns the string representation of the value.
+     *
+     * @return the string representation, or null if the value is null
+     */
+    public String value() {
+        return object == null ? null : object.toString();
+    }
 }
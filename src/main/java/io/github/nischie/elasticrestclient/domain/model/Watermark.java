@@ -0,0 +1,23 @@
+package io.github.nischie.elasticrestclient.domain.model;
+
+/**
+ * Represents the position of an incremental change reader: the sort values of the last document read.
+ * <p>
+ * Documents are read in ascending order of their timestamp and tiebreaker, so every document
+ * sorting after the watermark has not been read yet.
+ *
+ * @param timestamp  the timestamp of the last document read, in epoch milliseconds
+ * @param tiebreaker the tiebreaker value of the last document read, unique among documents with the same timestamp
+ */
+public record Watermark(long timestamp, String tiebreaker) {
+    /**
+     * Creates a new Watermark instance from the given timestamp and tiebreaker.
+     *
+     * @param timestamp  the timestamp in epoch milliseconds
+     * @param tiebreaker the tiebreaker value
+     * @return a new Watermark instance
+     */
+    public static Watermark of(long timestamp, String tiebreaker) {
+        return new Watermark(timestamp, tiebreaker);
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+import java.time.Duration;
+
+/**
+ * Represents the options of an async search submission.
+ * <p>
+ * Controls how long the submission waits for the search to complete, how long the results are kept
+ * in the cluster, and whether results of a search completing within the wait are kept as well.
+ *
+ * @param waitForCompletionTimeout how long the submission blocks before it returns a partial result
+ * @param keepAlive                how long the results are kept after submission, or null for the cluster default of 5 days
+ * @param keepOnCompletion         whether the results are kept if the search completes within the wait
+ * @param size                     the number of hits to return, or null for the default of 10
+ */
+public record AsyncSearchOptions(
+        Duration waitForCompletionTimeout,
+        Duration keepAlive,
+        boolean keepOnCompletion,
+        Integer size
+) {
+    /**
+     * Returns the default options: wait one second, keep the results of running searches for the cluster default,
+     * discard the results of searches completing within the wait, 10 hits.
+     *
+     * @return the default AsyncSearchOptions
+     */
+    public static AsyncSearchOptions defaults() {
+        return new AsyncSearchOptions(Duration.ofSeconds(1), null, false, null);
+    }
+
+    /**
+     * Returns a copy of these options blocking up to the given duration before returning a partial result.
+     *
+     * @param waitForCompletionTimeout the maximum duration of the submission
+     * @return a new AsyncSearchOptions instance
+     */
+    public AsyncSearchOptions waitForCompletionTimeout(Duration waitForCompletionTimeout) {
+        return new AsyncSearchOptions(waitForCompletionTimeout, keepAlive, keepOnCompletion, size);
+    }
+
+    /**
+     * Returns a copy of these options keeping the results for the given duration after submission.
+     *
+     * @param keepAlive how long the results are kept
+     * @return a new AsyncSearchOptions instance
+     */
+    public AsyncSearchOptions keepAlive(Duration keepAlive) {
+        return new AsyncSearchOptions(waitForCompletionTimeout, keepAlive, keepOnCompletion, size);
+    }
+
+    /**
+     * Returns a copy of these options that keeps the results also if the search completes within the wait,
+     * so they can always be retrieved later by the ID of the search.
+     *
+     * @return a new AsyncSearchOptions instance
+     */
+    public AsyncSearchOptions keepResults() {
+        return new AsyncSearchOptions(waitForCompletionTimeout, keepAlive, true, size);
+    }
+
+    /**
+     * Returns a copy of these options returning the given number of hits.
+     *
+     * @param size the number of hits
+     * @return a new AsyncSearchOptions instance
+     */
+    public AsyncSearchOptions size(int size) {
+        return new AsyncSearchOptions(waitForCompletionTimeout, keepAlive, keepOnCompletion, size);
+    }
+
+    /**
+     * Returns the query string parameters for these options.
+     *
+     * @return the query string parameters, without leading {@code ?}
+     */
+    public String toQueryParams() {
+        StringBuilder params = new StringBuilder("wait_for_completion_timeout=")
+                .append(waitForCompletionTimeout.toMillis()).append("ms");
+        if (keepAlive != null) params.append("&keep_alive=").append(keepAlive.toMillis()).append("ms");
+        if (keepOnCompletion) params.append("&keep_on_completion=true");
+        if (size != null) params.append("&size=").append(size);
+        return params.toString();
+    }
+}
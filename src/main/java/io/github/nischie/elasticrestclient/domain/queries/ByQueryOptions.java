@@ -0,0 +1,98 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+/**
+ * Represents the execution options of update-by-query, delete-by-query and reindex requests.
+ * <p>
+ * Controls whether the request waits for completion, how many slices run in parallel,
+ * how much the operation is throttled, and whether version conflicts abort it.
+ *
+ * @param waitForCompletion whether the request blocks until the operation has finished
+ * @param slices            the number of slices, "auto" to use one slice per shard, or null for a single slice
+ * @param requestsPerSecond the throttle in sub-requests per second, or null for no throttling
+ * @param conflictsProceed  whether to continue on version conflicts instead of aborting
+ */
+public record ByQueryOptions(
+        boolean waitForCompletion,
+        String slices,
+        Float requestsPerSecond,
+        boolean conflictsProceed
+) {
+    /**
+     * Returns the default options: wait for completion, single slice, no throttling, abort on conflicts.
+     *
+     * @return the default ByQueryOptions
+     */
+    public static ByQueryOptions defaults() {
+        return new ByQueryOptions(true, null, null, false);
+    }
+
+    /**
+     * Returns a copy of these options that does not wait for completion, but runs as a task.
+     *
+     * @return a new ByQueryOptions instance
+     */
+    public ByQueryOptions async() {
+        return new ByQueryOptions(false, slices, requestsPerSecond, conflictsProceed);
+    }
+
+    /**
+     * Returns a copy of these options that lets Elasticsearch choose the number of slices.
+     *
+     * @return a new ByQueryOptions instance
+     */
+    public ByQueryOptions autoSlices() {
+        return new ByQueryOptions(waitForCompletion, "auto", requestsPerSecond, conflictsProceed);
+    }
+
+    /**
+     * Returns a copy of these options with the given number of slices.
+     *
+     * @param slices the number of slices
+     * @return a new ByQueryOptions instance
+     */
+    public ByQueryOptions slices(int slices) {
+        return new ByQueryOptions(waitForCompletion, String.valueOf(slices), requestsPerSecond, conflictsProceed);
+    }
+
+    /**
+     * Returns a copy of these options throttled to the given number of sub-requests per second.
+     *
+     * @param requestsPerSecond the throttle in sub-requests per second
+     * @return a new ByQueryOptions instance
+     */
+    public ByQueryOptions requestsPerSecond(float requestsPerSecond) {
+        return new ByQueryOptions(waitForCompletion, slices, requestsPerSecond, conflictsProceed);
+    }
+
+    /**
+     * Returns a copy of these options that counts version conflicts instead of aborting.
+     *
+     * @return a new ByQueryOptions instance
+     */
+    public ByQueryOptions proceedOnConflicts() {
+        return new ByQueryOptions(waitForCompletion, slices, requestsPerSecond, true);
+    }
+
+    /**
+     * Returns the query string parameters for these options.
+     *
+     * @return the query string parameters, without leading {@code ?}
+     */
+    public String toQueryParams() {
+        String params = toReindexQueryParams();
+        return conflictsProceed ? params + "&conflicts=proceed" : params;
+    }
+
+    /**
+     * Returns the query string parameters for these options on the Reindex API, which takes
+     * {@code conflicts} in the request body instead.
+     *
+     * @return the query string parameters, without leading {@code ?} and without {@code conflicts}
+     */
+    public String toReindexQueryParams() {
+        StringBuilder params = new StringBuilder("wait_for_completion=").append(waitForCompletion);
+        if (slices != null) params.append("&slices=").append(slices);
+        if (requestsPerSecond != null) params.append("&requests_per_second=").append(requestsPerSecond);
+        return params.toString();
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+import java.time.Duration;
+
+/**
+ * Represents how an incremental change reader finds the documents changed since its watermark.
+ * <p>
+ * Changed documents are identified by a timestamp field that is set whenever a document is written,
+ * ideally by an ingest pipeline from {@code _ingest.timestamp}, and ordered by a unique tiebreaker field
+ * among equal timestamps. Documents are only read once their timestamp is older than the settle lag,
+ * which must exceed the refresh interval plus the longest time a write can be in flight; then no
+ * document becomes visible behind the watermark and no change is skipped. The age is measured by the
+ * cluster's clock, so the clock of the reader does not matter; if the timestamp is set by the writing
+ * application instead of an ingest pipeline, the settle lag must also cover the skew of the writers' clocks.
+ *
+ * @param timestampField  the {@code date} field holding the time of the last write of a document
+ * @param tiebreakerField the {@code keyword} field with a unique value per document, e.g. a copy of its ID
+ * @param settleLag       how old a change must be before it is read
+ * @param pageSize        the number of documents per page
+ * @param query           the query the changed documents must match, or null to track all documents
+ */
+public record ChangeTracking(
+        String timestampField,
+        String tiebreakerField,
+        Duration settleLag,
+        int pageSize,
+        StringSearchQuery query
+) {
+    /**
+     * Creates a ChangeTracking on the given fields with a settle lag of 30 seconds and pages of 1,000 documents.
+     *
+     * @param timestampField the date field holding the time of the last write of a document
+     * @param tiebreakerField the keyword field with a unique value per document
+     * @return a new ChangeTracking
+     */
+    public static ChangeTracking of(String timestampField, String tiebreakerField) {
+        return new ChangeTracking(timestampField, tiebreakerField, Duration.ofSeconds(30), 1000, null);
+    }
+
+    /**
+     * Returns a copy of this tracking with the given settle lag.
+     *
+     * @param settleLag how old a change must be before it is read
+     * @return a new ChangeTracking instance
+     */
+    public ChangeTracking settleLag(Duration settleLag) {
+        return new ChangeTracking(timestampField, tiebreakerField, settleLag, pageSize, query);
+    }
+
+    /**
+     * Returns a copy of this tracking with the given page size.
+     *
+     * @param pageSize the number of documents per page
+     * @return a new ChangeTracking instance
+     */
+    public ChangeTracking pageSize(int pageSize) {
+        return new ChangeTracking(timestampField, tiebreakerField, settleLag, pageSize, query);
+    }
+
+    /**
+     * Returns a copy of this tracking that only reads changed documents matching the given query.
+     *
+     * @param query the query the changed documents must match
+     * @return a new ChangeTracking instance
+     */
+    public ChangeTracking query(StringSearchQuery query) {
+        return new ChangeTracking(timestampField, tiebreakerField, settleLag, pageSize, query);
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents an approximate k-nearest-neighbor search on a {@code dense_vector} field.
+ * <p>
+ * Serialized as the top-level {@code knn} section of a search request. The query vector is written
+ * as a primitive {@code float[]}, so no element is boxed.
+ *
+ * @param field         the dense-vector field to search
+ * @param queryVector   the vector to find the nearest neighbors of
+ * @param k             the number of nearest neighbors to return
+ * @param numCandidates the number of candidates considered per shard, at least k
+ * @param filter        the query the neighbors must match, or null to consider all documents
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record KnnQuery(
+        @JsonProperty("field") String field,
+        @JsonProperty("query_vector") float[] queryVector,
+        @JsonProperty("k") int k,
+        @JsonProperty("num_candidates") int numCandidates,
+        @JsonProperty("filter") StringSearchQuery.Query filter
+) {
+    /**
+     * Creates a KnnQuery for the k nearest neighbors of the given vector, considering 10 candidates
+     * per neighbor on each shard, up to 10,000.
+     *
+     * @param field the dense-vector field to search
+     * @param queryVector the vector to find the nearest neighbors of
+     * @param k the number of nearest neighbors to return
+     * @return a new KnnQuery
+     */
+    public static KnnQuery of(String field, float[] queryVector, int k) {
+        return new KnnQuery(field, queryVector, k, Math.max(k, Math.min(10 * k, 10000)), null);
+    }
+
+    /**
+     * Returns a copy of this query considering the given number of candidates per shard.
+     * More candidates improve the recall at the cost of latency.
+     *
+     * @param numCandidates the number of candidates per shard, at least k
+     * @return a new KnnQuery instance
+     */
+    public KnnQuery numCandidates(int numCandidates) {
+        return new KnnQuery(field, queryVector, k, numCandidates, filter);
+    }
+
+    /**
+     * Returns a copy of this query that only considers documents matching the given query string.
+     * The filter is applied during the search, so k neighbors are returned if enough documents match.
+     *
+     * @param queryString the query string the neighbors must match
+     * @return a new KnnQuery instance
+     */
+    public KnnQuery filter(String queryString) {
+        return new KnnQuery(field, queryVector, k, numCandidates,
+                new StringSearchQuery.Query(new StringSearchQuery.QueryString(queryString)));
+    }
+}
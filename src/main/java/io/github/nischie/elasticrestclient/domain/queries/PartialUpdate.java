@@ -0,0 +1,75 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents the body of a single document update using the Elasticsearch Update API.
+ * <p>
+ * Either a partial document ({@code doc}) or a {@link Script} is applied to the stored document.
+ * An optional {@code upsert} document is indexed if the document does not exist yet.
+ *
+ * @param doc            the partial document to merge into the stored document
+ * @param script         the script to apply to the stored document
+ * @param upsert         the document to index if the document does not exist
+ * @param docAsUpsert    whether to use {@code doc} as upsert document
+ * @param scriptedUpsert whether to run the script also if the document does not exist
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PartialUpdate(
+        @JsonProperty("doc") Object doc,
+        @JsonProperty("script") Script script,
+        @JsonProperty("upsert") Object upsert,
+        @JsonProperty("doc_as_upsert") Boolean docAsUpsert,
+        @JsonProperty("scripted_upsert") Boolean scriptedUpsert
+) {
+    /**
+     * Creates a partial update that merges the given fields into the stored document.
+     *
+     * @param doc the partial document
+     * @return a new PartialUpdate instance
+     */
+    public static PartialUpdate doc(Object doc) {
+        return new PartialUpdate(doc, null, null, null, null);
+    }
+
+    /**
+     * Creates a partial update that merges the given fields into the stored document,
+     * or indexes them as a new document if it does not exist.
+     *
+     * @param doc the partial document
+     * @return a new PartialUpdate instance
+     */
+    public static PartialUpdate docAsUpsert(Object doc) {
+        return new PartialUpdate(doc, null, null, true, null);
+    }
+
+    /**
+     * Creates a scripted update.
+     *
+     * @param script the script to apply to the stored document
+     * @return a new PartialUpdate instance
+     */
+    public static PartialUpdate script(Script script) {
+        return new PartialUpdate(null, script, null, null, null);
+    }
+
+    /**
+     * Returns a copy of this update that indexes the given document if the document does not exist.
+     *
+     * @param upsert the document to index if the document does not exist
+     * @return a new PartialUpdate instance
+     */
+    public PartialUpdate withUpsert(Object upsert) {
+        return new PartialUpdate(doc, script, upsert, docAsUpsert, scriptedUpsert);
+    }
+
+    /**
+     * Returns a copy of this scripted update that also runs the script if the document does not exist.
+     *
+     * @return a new PartialUpdate instance
+     */
+    public PartialUpdate asScriptedUpsert() {
+        return new PartialUpdate(doc, script, upsert, docAsUpsert, true);
+    }
+}
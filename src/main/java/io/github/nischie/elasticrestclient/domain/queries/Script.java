@@ -0,0 +1,57 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Map;
+
+/**
+ * Represents an Elasticsearch script, as used by update and update-by-query requests.
+ * <p>
+ * Either an inline script ({@code source}) or a stored script ({@code id}) is referenced.
+ * Values should be passed as {@code params} instead of being concatenated into the source,
+ * so that Elasticsearch compiles the script once and reuses it from its script cache.
+ *
+ * @param id     the id of a stored script
+ * @param source the inline script source
+ * @param lang   the script language, usually "painless"
+ * @param params the script parameters, referenced as {@code params.<name>} in the source
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record Script(
+        String id,
+        String source,
+        String lang,
+        Map<String, Object> params
+) {
+    /**
+     * Creates a new inline painless Script without parameters.
+     *
+     * @param source the script source
+     * @return a new Script instance
+     */
+    public static Script of(String source) {
+        return new Script(null, source, "painless", Map.of());
+    }
+
+    /**
+     * Creates a new inline painless Script with the given parameters.
+     *
+     * @param source the script source
+     * @param params the script parameters
+     * @return a new Script instance
+     */
+    public static Script of(String source, Map<String, Object> params) {
+        return new Script(null, source, "painless", params);
+    }
+
+    /**
+     * Creates a reference to a stored script with the given parameters.
+     *
+     * @param id     the id of the stored script
+     * @param params the script parameters
+     * @return a new Script instance
+     */
+    public static Script stored(String id, Map<String, Object> params) {
+        return new Script(id, null, null, params);
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.nischie.elasticrestclient.domain.queries;
+
+/**
+ * Represents the shard selection of search, count and scroll requests.
+ * <p>
+ * With routing keys only the shards holding documents of these keys are searched instead of all shards,
+ * e.g. a single shard for tenant-scoped queries. A preference pins repeated searches to the same shard copies,
+ * so their caches are reused and the order of equally scored hits stays stable.
+ *
+ * @param routing    the comma-separated routing keys, or null to search all shards
+ * @param preference the shard copy preference, e.g. a session ID, {@code _local} or {@code _shards:0},
+ *                   or null for adaptive replica selection
+ */
+public record SearchParams(
+        String routing,
+        String preference
+) {
+    /**
+     * Returns the default parameters: all shards, adaptive replica selection.
+     *
+     * @return the default SearchParams
+     */
+    public static SearchParams none() {
+        return new SearchParams(null, null);
+    }
+
+    /**
+     * Returns parameters searching only the shards of the given routing keys.
+     *
+     * @param routing the routing keys
+     * @return a new SearchParams instance
+     */
+    public static SearchParams routing(String... routing) {
+        return none().withRouting(routing);
+    }
+
+    /**
+     * Returns a copy of these parameters searching only the shards of the given routing keys.
+     *
+     * @param routing the routing keys
+     * @return a new SearchParams instance
+     */
+    public SearchParams withRouting(String... routing) {
+        return new SearchParams(String.join(",", routing), preference);
+    }
+
+    /**
+     * Returns a copy of these parameters with the given shard copy preference.
+     *
+     * @param preference the preference, e.g. a session ID
+     * @return a new SearchParams instance
+     */
+    public SearchParams withPreference(String preference) {
+        return new SearchParams(routing, preference);
+    }
+
+    /**
+     * Returns the query string parameters for these parameters.
+     *
+     * @return the query string parameters, without leading {@code ?}, or an empty string if none are set
+     */
+    public String toQueryParams() {
+        StringBuilder params = new StringBuilder();
+        if (routing != null) {
+            params.append("routing=").append(routing);
+        }
+        if (preference != null) {
+            params.append(params.isEmpty() ? "" : "&").append("preference=").append(preference);
+        }
+        return params.toString();
+    }
+}
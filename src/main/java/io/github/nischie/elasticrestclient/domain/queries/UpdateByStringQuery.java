@@ -3,24 +3,70 @@ package io.github.nischie.elasticrestclient.domain.queries;
 import io.github.nischie.elasticrestclient.domain.model.Field;
 import io.github.nischie.elasticrestclient.domain.model.Value;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
+ * Represents the body of an update-by-query request using a query string.
+ * <p>
+ * Field assignments are passed as script parameters to a constant script source,
+ * so repeated updates with different values reuse the same compiled script.
  *
+ * @param query  the query selecting the documents to update
+ * @param script the script applied to each matching document
  */
 public record UpdateByStringQuery(
         StringSearchQuery.Query query,
         Script script
 ) {
+    /**
+     * The constant painless source that assigns {@code params.assignments} to the document source.
+     * Dotted field names are resolved as paths into nested objects, missing objects are created.
+     */
+    public static final String ASSIGNMENT_SCRIPT_SOURCE = """
+            for (def entry : params.assignments.entrySet()) {
+              def target = ctx._source;
+              String[] path = entry.getKey().splitOnToken('.');
+              for (int i = 0; i < path.length - 1; i++) {
+                if (target[path[i]] == null) { target[path[i]] = new HashMap(); }
+                target = target[path[i]];
+              }
+              target[path[path.length - 1]] = entry.getValue();
+            }""";
 
+    /**
+     * Creates an update-by-query request that sets a single field to the given value.
+     *
+     * @param query the query selecting the documents to update
+     * @param field the field to set
+     * @param value the value to set
+     * @return a new UpdateByStringQuery instance
+     */
     public static UpdateByStringQuery of(StringSearchQuery query, Field field, Value value) {
-        return new UpdateByStringQuery(query.getQuery(), new Script(field, value) );
+        return of(query, Map.of(field, value));
+    }
+
+    /**
+     * Creates an update-by-query request that sets all given fields to their values.
+     *
+     * @param query       the query selecting the documents to update
+     * @param assignments the fields to set and their values
+     * @return a new UpdateByStringQuery instance
+     */
+    public static UpdateByStringQuery of(StringSearchQuery query, Map<Field, Value> assignments) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        assignments.forEach((field, value) -> params.put(field.fieldName(), value.object()));
+        return of(query, Script.of(ASSIGNMENT_SCRIPT_SOURCE, Map.of("assignments", params)));
     }
 
-    private record Script(String source, String lang) {
-        public Script(Field field, Value value) {
-            this("ctx._source." + field.fieldName() + " = \"" + value.value() + "\"", "painless");
-        }
-        public static Script of(String source, String lang) {
-            return new Script(source, lang);
-        }
+    /**
+     * Creates an update-by-query request that applies the given inline or stored script.
+     *
+     * @param query  the query selecting the documents to update
+     * @param script the script to apply
+     * @return a new UpdateByStringQuery instance
+     */
+    public static UpdateByStringQuery of(StringSearchQuery query, Script script) {
+        return new UpdateByStringQuery(query.getQuery(), script);
     }
 }
@@ -0,0 +1,109 @@
+package io.github.nischie.elasticrestclient.domain.tasks;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the status of a task as returned by the Elasticsearch Tasks API.
+ *
+ * @param completed whether the task has finished
+ * @param task      the task details, including the progress counters
+ * @param response  the final response of the task, once completed
+ * @param error     the error of the task, if it failed
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TaskStatus(
+        @JsonProperty("completed") boolean completed,
+        @JsonProperty("task") Task task,
+        @Nullable @JsonProperty("response") Map<String, Object> response,
+        @Nullable @JsonProperty("error") Map<String, Object> error
+) {
+    /**
+     * Returns the progress counters of the task.
+     *
+     * @return the progress counters, or null if the task reports none
+     */
+    public Progress progress() {
+        return task == null ? null : task.status();
+    }
+
+    /**
+     * Returns whether the task has finished with an error or with failed documents.
+     *
+     * @return true if the task failed, false otherwise
+     */
+    public boolean failed() {
+        if (error != null) {
+            return true;
+        }
+        return response != null
+                && response.get("failures") instanceof List<?> failures
+                && !failures.isEmpty();
+    }
+
+    /**
+     * Represents the task details in the Tasks API response.
+     *
+     * @param node               the node the task is running on
+     * @param action             the action of the task, e.g. {@code indices:data/write/update/byquery}
+     * @param status             the progress counters of the task
+     * @param runningTimeInNanos the running time of the task in nanoseconds
+     * @param cancelled          whether the task has been cancelled
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Task(
+            @JsonProperty("node") String node,
+            @JsonProperty("action") String action,
+            @Nullable @JsonProperty("status") Progress status,
+            @JsonProperty("running_time_in_nanos") Long runningTimeInNanos,
+            @JsonProperty("cancelled") Boolean cancelled
+    ) {}
+
+    /**
+     * Represents the progress counters of a by-query or reindex task.
+     *
+     * @param total                the total number of documents to process
+     * @param created              the number of documents created
+     * @param updated              the number of documents updated
+     * @param deleted              the number of documents deleted
+     * @param batches              the number of scroll batches processed
+     * @param versionConflicts     the number of version conflicts
+     * @param noops                the number of documents left unchanged
+     * @param requestsPerSecond    the current throttle, -1 if unthrottled
+     * @param throttledUntilMillis the time until the next batch is throttled in milliseconds
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Progress(
+            @JsonProperty("total") long total,
+            @JsonProperty("created") long created,
+            @JsonProperty("updated") long updated,
+            @JsonProperty("deleted") long deleted,
+            @JsonProperty("batches") long batches,
+            @JsonProperty("version_conflicts") long versionConflicts,
+            @JsonProperty("noops") long noops,
+            @JsonProperty("requests_per_second") float requestsPerSecond,
+            @JsonProperty("throttled_until_millis") long throttledUntilMillis
+    ) {
+        /**
+         * Returns the number of documents processed so far.
+         *
+         * @return the sum of created, updated, deleted, noop and conflicting documents
+         */
+        public long processed() {
+            return created + updated + deleted + noops + versionConflicts;
+        }
+
+        /**
+         * Returns the fraction of documents processed so far.
+         *
+         * @return a value between 0 and 1, or 0 if the total is not known yet
+         */
+        public double fractionDone() {
+            return total == 0 ? 0 : Math.min(1.0, (double) processed() / total);
+        }
+    }
+}
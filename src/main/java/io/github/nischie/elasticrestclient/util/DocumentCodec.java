@@ -0,0 +1,48 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Service provider interface for writing and reading documents of one type.
+ * <p>
+ * Implementations write directly to a {@link JsonGenerator} and read directly from a {@link JsonParser},
+ * so hand-written or generated codecs work without reflection or intermediate trees.
+ * Codecs are registered with {@link JsonCodec#register(DocumentCodec)}, or discovered with
+ * {@link java.util.ServiceLoader} from {@code META-INF/services/io.github.nischie.elasticrestclient.util.DocumentCodec}.
+ * Types without a registered codec use the {@link JacksonDocumentCodec}.
+ *
+ * @param <T> the type of the document
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public interface DocumentCodec<T> {
+    /**
+     * Returns the document type handled by this codec.
+     *
+     * @return the document class
+     */
+    Class<T> type();
+
+    /**
+     * Writes the document as a JSON object.
+     *
+     * @param document the document to write
+     * @param generator the generator to write to
+     * @throws java.io.IOException if writing fails
+     */
+    void write(T document, JsonGenerator generator) throws IOException;
+
+    /**
+     * Reads a document from a JSON object.
+     * The parser is positioned on the {@code START_OBJECT} token of the document
+     * and must be left on the matching {@code END_OBJECT} token.
+     *
+     * @param parser the parser to read from
+     * @return the document
+     * @throws java.io.IOException if reading fails
+     */
+    T read(JsonParser parser) throws IOException;
+}
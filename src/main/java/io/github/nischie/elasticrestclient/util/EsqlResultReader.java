@@ -0,0 +1,227 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.nischie.elasticrestclient.domain.esql.EsqlResult;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for ES|QL responses in the columnar format.
+ * <p>
+ * Decodes each column of {@code values} token by token into a primitive array chosen by the column type,
+ * so no value is boxed and no row object is built. Strings are dictionary-encoded per column.
+ * Relies on Elasticsearch writing {@code columns} before {@code values}. Multi-valued cells are not
+ * supported in a columnar batch and have to be reduced in the query, e.g. with {@code MV_MAX}.
+ * {@code unsigned_long} columns are decoded into a {@code long[]} holding the 64 bits of the value, so values of
+ * 2<sup>63</sup> and above read as negative and have to be handled with {@link java.lang.Long#toUnsignedString(long)}
+ * or {@link java.lang.Long#compareUnsigned(long, long)}.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class EsqlResultReader {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private EsqlResultReader() {
+    }
+
+    private enum Kind { LONG, UNSIGNED_LONG, DATE, DOUBLE, BOOLEAN, STRING }
+
+    private record ColumnDefinition(String name, String type, Kind kind) {}
+
+    /**
+     * Reads a columnar ES|QL response.
+     *
+     * @param parser a parser on the response, before its first token
+     * @return the decoded result
+     * @throws java.io.IOException if reading fails or the response contains multi-valued cells
+     */
+    public static EsqlResult read(JsonParser parser) throws IOException {
+        List<ColumnDefinition> definitions = null;
+        List<EsqlResult.Column> columns = new ArrayList<>();
+        Long took = null;
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "took" -> took = parser.getValueAsLong();
+                case "columns" -> definitions = readDefinitions(parser);
+                case "values" -> {
+                    if (definitions == null) {
+                        throw new IOException("Unexpected ES|QL response: values before columns");
+                    }
+                    columns = readColumns(parser, definitions);
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        if (definitions == null) {
+            throw new IOException("Unexpected ES|QL response: no columns");
+        }
+        for (int i = columns.size(); i < definitions.size(); i++) {
+            columns.add(newColumn(definitions.get(i), new ColumnBuilder(), 0));
+        }
+        int rowCount = columns.isEmpty() ? 0 : rowCount(columns.get(0));
+        return new EsqlResult(List.copyOf(columns), rowCount, took);
+    }
+
+    private static List<ColumnDefinition> readDefinitions(JsonParser parser) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<ColumnDefinition> definitions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String name = null;
+            String type = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = parser.getValueAsString();
+                    case "type" -> type = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+            definitions.add(new ColumnDefinition(name, type, kind(type)));
+        }
+        return definitions;
+    }
+
+    private static Kind kind(String type) {
+        return switch (type == null ? "" : type) {
+            case "long", "integer", "short", "byte", "counter_long", "counter_integer" -> Kind.LONG;
+            case "unsigned_long" -> Kind.UNSIGNED_LONG;
+            case "date" -> Kind.DATE;
+            case "double", "float", "half_float", "scaled_float", "counter_double" -> Kind.DOUBLE;
+            case "boolean" -> Kind.BOOLEAN;
+            default -> Kind.STRING;
+        };
+    }
+
+    private static List<EsqlResult.Column> readColumns(JsonParser parser, List<ColumnDefinition> definitions) throws IOException {
+        expect(parser.currentToken(), JsonToken.START_ARRAY);
+        List<EsqlResult.Column> columns = new ArrayList<>(definitions.size());
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            if (columns.size() == definitions.size()) {
+                throw new IOException("Unexpected ES|QL response: more value columns than columns");
+            }
+            ColumnDefinition definition = definitions.get(columns.size());
+            ColumnBuilder builder = new ColumnBuilder();
+            int rows = 0;
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_NULL) {
+                    builder.nulls.set(rows);
+                    builder.append(definition.kind(), rows, null);
+                } else if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+                    throw new IOException("Multi-valued cell in ES|QL column " + definition.name()
+                            + "; reduce it in the query, e.g. with MV_MAX");
+                } else {
+                    builder.append(definition.kind(), rows, parser);
+                }
+                rows++;
+            }
+            columns.add(newColumn(definition, builder, rows));
+        }
+        return columns;
+    }
+
+    private static EsqlResult.Column newColumn(ColumnDefinition definition, ColumnBuilder builder, int rows) {
+        return switch (definition.kind()) {
+            case LONG, UNSIGNED_LONG, DATE -> new EsqlResult.LongColumn(definition.name(), definition.type(),
+                    Arrays.copyOf(builder.longs, rows), builder.nulls);
+            case DOUBLE -> new EsqlResult.DoubleColumn(definition.name(), definition.type(),
+                    Arrays.copyOf(builder.doubles, rows), builder.nulls);
+            case BOOLEAN -> new EsqlResult.BooleanColumn(definition.name(), definition.type(),
+                    Arrays.copyOf(builder.booleans, rows), builder.nulls);
+            case STRING -> new EsqlResult.StringColumn(definition.name(), definition.type(),
+                    Arrays.copyOf(builder.codes, rows), builder.dictionary.toArray(new String[0]), builder.nulls);
+        };
+    }
+
+    private static int rowCount(EsqlResult.Column column) {
+        if (column instanceof EsqlResult.LongColumn longs) {
+            return longs.values().length;
+        }
+        if (column instanceof EsqlResult.DoubleColumn doubles) {
+            return doubles.values().length;
+        }
+        if (column instanceof EsqlResult.BooleanColumn booleans) {
+            return booleans.values().length;
+        }
+        return ((EsqlResult.StringColumn) column).codes().length;
+    }
+
+    /**
+     * Growable primitive storage of a single column; only the array of the column's kind is allocated.
+     */
+    private static class ColumnBuilder {
+        private final BitSet nulls = new BitSet();
+        private long[] longs = new long[0];
+        private double[] doubles = new double[0];
+        private boolean[] booleans = new boolean[0];
+        private int[] codes = new int[0];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+
+        void append(Kind kind, int row, JsonParser parser) throws IOException {
+            switch (kind) {
+                case LONG -> {
+                    growLongs(row);
+                    longs[row] = parser == null ? 0 : parser.getValueAsLong();
+                }
+                case UNSIGNED_LONG -> {
+                    growLongs(row);
+                    // values above Long.MAX_VALUE keep their 64 bits, i.e. read as negative
+                    longs[row] = parser == null ? 0 : parser.getBigIntegerValue().longValue();
+                }
+                case DATE -> {
+                    growLongs(row);
+                    longs[row] = parser == null ? 0
+                            : parser.currentToken() == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue()
+                            : Instant.parse(parser.getText()).toEpochMilli();
+                }
+                case DOUBLE -> {
+                    if (row == doubles.length) {
+                        doubles = Arrays.copyOf(doubles, Math.max(INITIAL_CAPACITY, row * 2));
+                    }
+                    doubles[row] = parser == null ? 0 : parser.getValueAsDouble();
+                }
+                case BOOLEAN -> {
+                    if (row == booleans.length) {
+                        booleans = Arrays.copyOf(booleans, Math.max(INITIAL_CAPACITY, row * 2));
+                    }
+                    booleans[row] = parser != null && parser.getValueAsBoolean();
+                }
+                case STRING -> {
+                    if (row == codes.length) {
+                        codes = Arrays.copyOf(codes, Math.max(INITIAL_CAPACITY, row * 2));
+                    }
+                    codes[row] = parser == null ? -1 : dictionaryCodes.computeIfAbsent(parser.getText(), value -> {
+                        dictionary.add(value);
+                        return dictionary.size() - 1;
+                    });
+                }
+            }
+        }
+
+        private void growLongs(int row) {
+            if (row == longs.length) {
+                longs = Arrays.copyOf(longs, Math.max(INITIAL_CAPACITY, row * 2));
+            }
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected token in ES|QL response: expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+
+/**
+ * Default {@link DocumentCodec} using Jackson databind with the cached reader and writer of a {@link JsonCodec}.
+ *
+ * @param <T> the type of the document
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class JacksonDocumentCodec<T> implements DocumentCodec<T> {
+    private final Class<T> type;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    /**
+     * Constructs a JacksonDocumentCodec for the given type.
+     *
+     * @param type the document class
+     * @param jsonCodec the JsonCodec providing the reader and writer
+     */
+    public JacksonDocumentCodec(Class<T> type, JsonCodec jsonCodec) {
+        this.type = type;
+        this.reader = jsonCodec.readerFor(type);
+        this.writer = jsonCodec.writerFor(type);
+    }
+
+    @Override
+    public Class<T> type() {
+        return type;
+    }
+
+    @Override
+    public void write(T document, JsonGenerator generator) throws IOException {
+        writer.writeValue(generator, document);
+    }
+
+    @Override
+    public T read(JsonParser parser) throws IOException {
+        return reader.readValue(parser);
+    }
+}
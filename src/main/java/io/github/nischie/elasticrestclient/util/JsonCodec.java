@@ -0,0 +1,433 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
+import io.github.nischie.elasticrestclient.domain.documents.ElasticDocumentSearchResult;
+import io.github.nischie.elasticrestclient.domain.documents.RawDocument;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Central JSON codec used for all request bodies, response bodies and document sources.
+ * <p>
+ * Holds a single pre-configured Jackson ObjectMapper and caches an ObjectReader and ObjectWriter
+ * per class, so serializers and deserializers are only built once. The same mapper is registered
+ * with the RestClient message converters, so responses are parsed with the same configuration.
+ * <p>
+ * Document types can be handled by a registered {@link DocumentCodec} instead of Jackson databind.
+ * Registered codecs are used for serialization of request bodies and for reading document sources.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class JsonCodec {
+    private static final JsonCodec DEFAULT_CODEC = new JsonCodec();
+    private static final List<String> BYTECODE_MODULES = List.of(
+            "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule");
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, DocumentCodec<?>> registeredCodecs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, DocumentCodec<?>> defaultCodecs = new ConcurrentHashMap<>();
+    private final Set<String> vectorFields = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a JsonCodec with the default configuration: Java time support and ISO-8601 dates.
+     */
+    public JsonCodec() {
+        this(createObjectMapper());
+    }
+
+    /**
+     * Constructs a JsonCodec using a copy of the given ObjectMapper.
+     * The given mapper is not changed, and later changes to it do not affect the codec.
+     *
+     * @param objectMapper the ObjectMapper whose configuration to use
+     */
+    public JsonCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper.copy();
+        this.objectMapper.setConfig(this.objectMapper.getDeserializationConfig()
+                .withAttribute(SourceDeserializer.VECTOR_FIELDS, vectorFields));
+        for (DocumentCodec<?> documentCodec : ServiceLoader.load(DocumentCodec.class)) {
+            register(documentCodec);
+        }
+    }
+
+    /**
+     * Returns the codec shared by all clients that are not configured with a codec of their own.
+     *
+     * @return the default JsonCodec
+     */
+    public static JsonCodec defaultCodec() {
+        return DEFAULT_CODEC;
+    }
+
+    /**
+     * Creates a JsonCodec with the default configuration and the Blackbird module, or the Afterburner module,
+     * if one of them is on the classpath. These modules replace reflective property access with generated code.
+     * If neither is available, the codec works like {@link #JsonCodec()}.
+     *
+     * @return a new JsonCodec
+     */
+    public static JsonCodec withBytecodeAcceleration() {
+        ObjectMapper mapper = createObjectMapper();
+        for (String moduleClass : BYTECODE_MODULES) {
+            try {
+                mapper.registerModule((Module) Class.forName(moduleClass).getDeclaredConstructor().newInstance());
+                break;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // module not on the classpath, try the next one
+            }
+        }
+        return new JsonCodec(mapper);
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Returns the underlying ObjectMapper.
+     *
+     * @return the ObjectMapper
+     */
+    public ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Declares dense-vector fields of document sources, so {@link io.github.nischie.elasticrestclient.domain.documents.ElasticDocument}
+     * sources hold them as {@code float[]} instead of boxed {@code List<Double>}. Document classes with
+     * {@code float[]} properties need no declaration; Jackson reads and writes those without boxing.
+     *
+     * @param fields the dotted paths of the dense-vector fields, e.g. {@code embedding}
+     * @return this JsonCodec
+     */
+    public JsonCodec vectorFields(String... fields) {
+        vectorFields.addAll(Arrays.asList(fields));
+        return this;
+    }
+
+    /**
+     * Builds the serializers and deserializers of the client's response types and of the given document classes
+     * ahead of their first use, and runs a sample document through the writer, the parser and the search hit reader,
+     * so the Jackson classes are loaded. Needs no cluster, so it can also run in a CDS training run, e.g. with
+     * {@code -XX:ArchiveClassesAtExit}, to archive the loaded classes for faster startup.
+     *
+     * @param documentClasses the document classes read and written by the application
+     * @return this JsonCodec
+     */
+    public JsonCodec warmUp(Class<?>... documentClasses) {
+        for (Class<?> type : List.of(Map.class, ElasticDocument.class, ElasticDocumentSearchResult.class)) {
+            readerFor(type);
+            writerFor(type);
+        }
+        for (Class<?> type : documentClasses) {
+            readerFor(type);
+            writerFor(type);
+            codecFor(type);
+        }
+        try {
+            byte[] hit = serializeToBytes(Map.of("_index", "warmup", "_id", "1",
+                    "_source", Map.of("field", List.of(1, 1.5, true, "value"))));
+            deserialize(hit, ElasticDocument.class);
+            byte[] response = ("{\"took\":1,\"hits\":{\"hits\":[" + new String(hit, StandardCharsets.UTF_8) + "]}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            deserialize(response, ElasticDocumentSearchResult.class);
+            readSearchHits(response, Map.class);
+            readRawSearchHits(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the cached ObjectReader for the given class.
+     *
+     * @param clazz the class to read
+     * @return the ObjectReader
+     */
+    public ObjectReader readerFor(Class<?> clazz) {
+        return readers.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
+
+    /**
+     * Returns the cached ObjectWriter for the given class.
+     *
+     * @param clazz the class to write
+     * @return the ObjectWriter
+     */
+    public ObjectWriter writerFor(Class<?> clazz) {
+        return writers.computeIfAbsent(clazz, objectMapper::writerFor);
+    }
+
+    /**
+     * Registers a DocumentCodec, which is used instead of Jackson databind for its document type.
+     *
+     * @param documentCodec the DocumentCodec to register
+     * @param <T> the type of the document
+     * @return this JsonCodec
+     */
+    public <T> JsonCodec register(DocumentCodec<T> documentCodec) {
+        registeredCodecs.put(documentCodec.type(), documentCodec);
+        return this;
+    }
+
+    /**
+     * Returns the DocumentCodec for the given type: the registered codec,
+     * or a {@link JacksonDocumentCodec} if none is registered.
+     *
+     * @param clazz the document class
+     * @param <T> the type of the document
+     * @return the DocumentCodec
+     */
+    @SuppressWarnings("unchecked")
+    public <T> DocumentCodec<T> codecFor(Class<T> clazz) {
+        DocumentCodec<?> documentCodec = registeredCodecs.get(clazz);
+        if (documentCodec == null) {
+            documentCodec = defaultCodecs.computeIfAbsent(clazz, type -> new JacksonDocumentCodec<>(type, this));
+        }
+        return (DocumentCodec<T>) documentCodec;
+    }
+
+    /**
+     * Reads a document of the given type from the parser, using its DocumentCodec.
+     * The parser is positioned on the {@code START_OBJECT} token of the document.
+     *
+     * @param parser the parser to read from
+     * @param clazz the document class
+     * @param <T> the type of the document
+     * @return the document
+     * @throws java.io.IOException if reading fails
+     */
+    public <T> T read(JsonParser parser, Class<T> clazz) throws IOException {
+        return codecFor(clazz).read(parser);
+    }
+
+    /**
+     * Reads a document of the given type from UTF-8 encoded JSON bytes, using its DocumentCodec.
+     *
+     * @param json the UTF-8 encoded JSON
+     * @param clazz the document class
+     * @param <T> the type of the document
+     * @return the document
+     * @throws java.io.IOException if reading fails
+     */
+    public <T> T read(byte[] json, Class<T> clazz) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            parser.nextToken();
+            return read(parser, clazz);
+        }
+    }
+
+    /**
+     * Reads the sources of all hits of a search response as documents of the given type,
+     * streaming through the response without building a tree.
+     *
+     * @param searchResponse the UTF-8 encoded search response
+     * @param clazz the document class
+     * @param <T> the type of the document
+     * @return the documents, in hit order
+     * @throws java.io.IOException if reading fails
+     */
+    public <T> List<T> readSearchHits(byte[] searchResponse, Class<T> clazz) throws IOException {
+        DocumentCodec<T> documentCodec = codecFor(clazz);
+        List<T> documents = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(searchResponse)) {
+            SearchHitReader.read(parser, (index, id, sourceParser) -> documents.add(documentCodec.read(sourceParser)));
+        }
+        return documents;
+    }
+
+    /**
+     * Returns the raw source of all hits of a search response, as read-only views into the response bytes.
+     * The sources are only scanned for their boundaries, not decoded.
+     *
+     * @param searchResponse the UTF-8 encoded search response
+     * @return the raw documents, in hit order
+     * @throws java.io.IOException if reading fails
+     */
+    public List<RawDocument> readRawSearchHits(byte[] searchResponse) throws IOException {
+        List<RawDocument> documents = new ArrayList<>();
+        ByteBuffer response = ByteBuffer.wrap(searchResponse).asReadOnlyBuffer();
+        try (JsonParser parser = objectMapper.getFactory().createParser(searchResponse)) {
+            SearchHitReader.read(parser, (index, id, sourceParser) -> {
+                int start = (int) sourceParser.currentTokenLocation().getByteOffset();
+                sourceParser.skipChildren();
+                int end = (int) sourceParser.currentLocation().getByteOffset();
+                documents.add(new RawDocument(index, id, response.slice(start, end - start)));
+            });
+        }
+        return documents;
+    }
+
+    /**
+     * Serializes an object to a JSON string.
+     *
+     * @param obj the object to serialize
+     * @return a JSON string representation of the object
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public String serialize(Object obj) throws JsonProcessingException {
+        if (obj == null) {
+            return "null";
+        }
+        DocumentCodec<Object> documentCodec = registeredCodecFor(obj);
+        if (documentCodec != null) {
+            StringWriter out = new StringWriter();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                documentCodec.write(obj, generator);
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toString();
+        }
+        return writerFor(obj.getClass()).writeValueAsString(obj);
+    }
+
+    /**
+     * Serializes an object to UTF-8 encoded JSON bytes.
+     *
+     * @param obj the object to serialize
+     * @return the UTF-8 encoded JSON representation of the object
+     * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
+     */
+    public byte[] serializeToBytes(Object obj) throws JsonProcessingException {
+        if (obj == null) {
+            return "null".getBytes(StandardCharsets.UTF_8);
+        }
+        DocumentCodec<Object> documentCodec = registeredCodecFor(obj);
+        if (documentCodec != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                documentCodec.write(obj, generator);
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+        return writerFor(obj.getClass()).writeValueAsBytes(obj);
+    }
+
+    /**
+     * Serializes an object as UTF-8 encoded JSON directly to the given stream.
+     *
+     * @param obj the object to serialize
+     * @param out the stream to write to, which is not closed
+     * @throws java.io.IOException if serialization or writing fails
+     */
+    public void serialize(Object obj, OutputStream out) throws IOException {
+        if (obj == null) {
+            out.write("null".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        DocumentCodec<Object> documentCodec = registeredCodecFor(obj);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            if (documentCodec != null) {
+                documentCodec.write(obj, generator);
+            } else {
+                writerFor(obj.getClass()).writeValue(generator, obj);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private DocumentCodec<Object> registeredCodecFor(Object obj) {
+        return (DocumentCodec<Object>) registeredCodecs.get(obj.getClass());
+    }
+
+    /**
+     * Deserializes UTF-8 encoded JSON bytes to an object of the specified class.
+     *
+     * @param json the UTF-8 encoded JSON
+     * @param clazz the target class
+     * @param <T> the type of the target class
+     * @return the deserialized object
+     * @throws java.io.IOException if parsing fails
+     */
+    public <T> T deserialize(byte[] json, Class<T> clazz) throws IOException {
+        return readerFor(clazz).readValue(json);
+    }
+
+    /**
+     * Converts a source map to a POJO of the specified class.
+     *
+     * @param source the source map containing JSON data
+     * @param clazz the target class to map the source to
+     * @param <T> the type of the target class
+     * @return an instance of the target class populated with source data
+     * @throws java.lang.RuntimeException if mapping fails
+     */
+    public <T> T convertSourceToPojo(Map<String, Object> source, Class<T> clazz) {
+        DocumentCodec<?> documentCodec = registeredCodecs.get(clazz);
+        if (documentCodec != null && source != null) {
+            try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+                objectMapper.writeValue(buffer, source);
+                try (JsonParser parser = buffer.asParser(objectMapper)) {
+                    parser.nextToken();
+                    return clazz.cast(documentCodec.read(parser));
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to map source to " + clazz.getName(), e);
+            }
+        }
+        try {
+            return objectMapper.convertValue(source, clazz);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Failed to map source to " + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * Replaces the Jackson message converter of a RestClient with one using this codec's ObjectMapper,
+     * so response bodies are parsed with the same configuration and caches.
+     * Intended for {@code RestClient.Builder#messageConverters(Consumer)}.
+     *
+     * @param converters the message converters of the RestClient
+     */
+    public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
+        var converter = new MappingJackson2HttpMessageConverter(objectMapper);
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                converters.set(i, converter);
+                return;
+            }
+        }
+        converters.add(converter);
+    }
+}
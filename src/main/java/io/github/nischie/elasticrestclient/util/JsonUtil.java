@@ -1,24 +1,17 @@
 package io.github.nischie.elasticrestclient.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.util.Map;
 
 /**
  * Utility class for JSON operations, including serialization and conversion to POJOs.
- * Uses Jackson for JSON processing and supports ObjectNode.
+ * Delegates to the default {@link JsonCodec}, so it shares its ObjectMapper and caches.
  *
  * @author nschieschke
  * @version $Id: $Id
  */
 public class JsonUtil {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    static {
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-    }
 
     /**
      * Serializes an object to a JSON string.
@@ -29,7 +22,7 @@ public class JsonUtil {
      * @throws com.fasterxml.jackson.core.JsonProcessingException if serialization fails
      */
     public static String serialize(Object obj) throws JsonProcessingException {
-        return objectMapper.writeValueAsString(obj);
+        return JsonCodec.defaultCodec().serialize(obj);
     }
 
     /**
@@ -42,10 +35,6 @@ public class JsonUtil {
      * @throws java.lang.RuntimeException if mapping fails
      */
     public static <T> T convertSourceToPojo(Map<String, Object> source, Class<T> clazz) {
-        try {
-            return objectMapper.convertValue(source, clazz);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException("Failed to map source to "+clazz.getName(), e);
-        }
+        return JsonCodec.defaultCodec().convertSourceToPojo(source, clazz);
     }
 }
@@ -0,0 +1,150 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Streaming reader for Elasticsearch search responses.
+ * <p>
+ * Walks {@code hits.hits} token by token and hands the parser to a handler at the {@code _source}
+ * of each hit, so sources can be decoded without building a tree or map of the whole response.
+ * Relies on Elasticsearch writing {@code _index}, {@code _id} and {@code _routing} before {@code _source} in each hit.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class SearchHitReader {
+
+    private SearchHitReader() {
+    }
+
+    /**
+     * Handler for the source of a single search hit.
+     */
+    @FunctionalInterface
+    public interface HitHandler {
+        /**
+         * Consumes the source of a hit. The parser is positioned on the {@code START_OBJECT} token of
+         * {@code _source} and must be left on the matching {@code END_OBJECT} token.
+         *
+         * @param index the index of the hit
+         * @param id the ID of the hit
+         * @param parser the parser positioned on the source
+         * @throws java.io.IOException if reading fails
+         */
+        void onHit(String index, String id, JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Handler for the source of a single search hit that also receives the routing of the hit.
+     */
+    @FunctionalInterface
+    public interface RoutedHitHandler {
+        /**
+         * Consumes the source of a hit. The parser is positioned on the {@code START_OBJECT} token of
+         * {@code _source} and must be left on the matching {@code END_OBJECT} token.
+         *
+         * @param index the index of the hit
+         * @param id the ID of the hit
+         * @param routing the custom routing of the hit, or null if it was routed by its ID
+         * @param parser the parser positioned on the source
+         * @throws java.io.IOException if reading fails
+         */
+        void onHit(String index, String id, String routing, JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Summary of the non-hit fields of a search response.
+     *
+     * @param scrollId the scroll ID, or null if not a scroll search
+     * @param took the time Elasticsearch spent on the search in milliseconds, or null if not returned
+     * @param hitCount the number of hits in the response, including hits without {@code _source}, which are not passed to the handler
+     */
+    public record Summary(String scrollId, Long took, int hitCount) {}
+
+    /**
+     * Reads a search response, calling the handler for the source of each hit.
+     *
+     * @param parser a parser on the search response, before its first token
+     * @param handler the handler for the hit sources
+     * @return the summary of the response
+     * @throws java.io.IOException if reading fails
+     */
+    public static Summary read(JsonParser parser, HitHandler handler) throws IOException {
+        return read(parser, (RoutedHitHandler) (index, id, routing, sourceParser) -> handler.onHit(index, id, sourceParser));
+    }
+
+    /**
+     * Reads a search response, calling the handler for the source and routing of each hit.
+     *
+     * @param parser a parser on the search response, before its first token
+     * @param handler the handler for the hit sources
+     * @return the summary of the response
+     * @throws java.io.IOException if reading fails
+     */
+    public static Summary read(JsonParser parser, RoutedHitHandler handler) throws IOException {
+        String scrollId = null;
+        Long took = null;
+        int hitCount = 0;
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "_scroll_id" -> scrollId = parser.getValueAsString();
+                case "took" -> took = parser.getValueAsLong();
+                case "hits" -> hitCount = readHits(parser, handler);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Summary(scrollId, took, hitCount);
+    }
+
+    private static int readHits(JsonParser parser, RoutedHitHandler handler) throws IOException {
+        int hitCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("hits".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readHit(parser, handler);
+                    hitCount++;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return hitCount;
+    }
+
+    private static void readHit(JsonParser parser, RoutedHitHandler handler) throws IOException {
+        String index = null;
+        String id = null;
+        String routing = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "_index" -> index = parser.getValueAsString();
+                case "_id" -> id = parser.getValueAsString();
+                case "_routing" -> routing = parser.getValueAsString();
+                case "_source" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        handler.onHit(index, id, routing, parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected token in search response: expected " + expected + " but was " + actual);
+        }
+    }
+}
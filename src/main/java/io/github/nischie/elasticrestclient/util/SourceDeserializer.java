@@ -0,0 +1,86 @@
+package io.github.nischie.elasticrestclient.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Deserializer for document sources read into a map.
+ * <p>
+ * Fields declared as dense vectors with {@link JsonCodec#vectorFields(String...)} are read token by token
+ * into a primitive {@code float[]} instead of a {@code List<Double>}, so no element is boxed. All other
+ * fields are read like Jackson's untyped deserialization does. Nested fields are declared by their
+ * dotted path, e.g. {@code chunk.embedding}.
+ *
+ * @author nschieschke
+ * @version $Id: $Id
+ */
+public class SourceDeserializer extends StdDeserializer<Map<String, Object>> {
+    private static final long serialVersionUID = 1L;
+    static final String VECTOR_FIELDS = SourceDeserializer.class.getName() + ".vectorFields";
+
+    /**
+     * Constructs a SourceDeserializer.
+     */
+    public SourceDeserializer() {
+        super(Map.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+        Set<String> vectorFields = (Set<String>) ctxt.getAttribute(VECTOR_FIELDS);
+        if (vectorFields == null || vectorFields.isEmpty()) {
+            return ctxt.readValue(parser, Map.class);
+        }
+        if (!parser.isExpectedStartObjectToken()) {
+            return (Map<String, Object>) ctxt.handleUnexpectedToken(Map.class, parser);
+        }
+        return readObject(parser, ctxt, "", vectorFields);
+    }
+
+    private static Map<String, Object> readObject(JsonParser parser, DeserializationContext ctxt, String prefix,
+                                                  Set<String> vectorFields) throws IOException {
+        Map<String, Object> object = new LinkedHashMap<>();
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            JsonToken value = parser.nextToken();
+            String path = prefix + name;
+            if (value == JsonToken.START_ARRAY && vectorFields.contains(path)) {
+                object.put(name, readVector(parser));
+            } else if (value == JsonToken.START_OBJECT && containsNested(vectorFields, path + ".")) {
+                object.put(name, readObject(parser, ctxt, path + ".", vectorFields));
+            } else {
+                object.put(name, ctxt.readValue(parser, Object.class));
+            }
+        }
+        return object;
+    }
+
+    private static float[] readVector(JsonParser parser) throws IOException {
+        float[] vector = new float[64];
+        int length = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (length == vector.length) {
+                vector = Arrays.copyOf(vector, length * 2);
+            }
+            vector[length++] = parser.getFloatValue();
+        }
+        return length == vector.length ? vector : Arrays.copyOf(vector, length);
+    }
+
+    private static boolean containsNested(Set<String> vectorFields, String prefix) {
+        for (String field : vectorFields) {
+            if (field.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,12 +1,27 @@
 package io.github.nischie.elasticrestclient;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.github.nischie.elasticrestclient.client.BulkBufferPool;
+import io.github.nischie.elasticrestclient.client.BulkSizing;
+import io.github.nischie.elasticrestclient.client.BulkSpool;
 import io.github.nischie.elasticrestclient.client.ElasticRestClient;
+import io.github.nischie.elasticrestclient.domain.indices.TimeSeriesIndex;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
 import io.github.nischie.elasticrestclient.util.JsonUtil;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static io.github.nischie.elasticrestclient.TestData.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -43,5 +58,129 @@ class BulkClientIT extends BaseIT{
         doc = elasticClient.document().getDocument(TEST_INDEX, id);
         assertNull(doc, "Document should be deleted");
     }
-}
 
+    @Test
+    void testBulkRawSource() throws JsonProcessingException {
+        var id = testData.newId();
+        byte[] source = "{\n  \"string\": \"rawBulk\"\n}".getBytes(StandardCharsets.UTF_8);
+        elasticClient.bulk().addIndexRequest(TEST_INDEX, id, source);
+        elasticClient.bulk().executeBulk(true);
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertNotNull(doc);
+        assertEquals("rawBulk", doc.source().get("string"));
+    }
+
+    @Test
+    void testBulkOffHeapBuffer() throws JsonProcessingException {
+        elasticClient.bulk().setBufferPool(BulkBufferPool.offHeap(1024, 64));
+        var ids = java.util.stream.IntStream.range(0, 100).mapToObj(i -> testData.newId()).toList();
+        for (var id : ids) {
+            elasticClient.bulk().addIndexRequest(TEST_INDEX, id, Map.of("string", "offHeap"));
+        }
+        assertTrue(elasticClient.bulk().bufferMetrics().chunksInUse() > 1);
+        elasticClient.bulk().executeBulk(true);
+
+        var metrics = elasticClient.bulk().bufferMetrics();
+        assertTrue(metrics.direct());
+        assertEquals(0, metrics.chunksInUse());
+        assertTrue(metrics.chunksPooled() > 0);
+        var doc = elasticClient.document().getDocument(TEST_INDEX, ids.get(ids.size() - 1));
+        assertNotNull(doc);
+        assertEquals("offHeap", doc.source().get("string"));
+        elasticClient.bulk().setBufferPool(new BulkBufferPool(BulkBufferPool.DEFAULT_CHUNK_SIZE, 16, false));
+    }
+
+    @Test
+    void testAdaptiveSizing() throws JsonProcessingException {
+        var sizing = new BulkSizing(1024, 64 * 1024, 1, 2, Duration.ofSeconds(5));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            elasticClient.bulk().setSizing(sizing, executor);
+            var ids = java.util.stream.IntStream.range(0, 500).mapToObj(i -> testData.newId()).toList();
+            for (var id : ids) {
+                elasticClient.bulk().addIndexRequest(TEST_INDEX, id, Map.of("string", "adaptive"));
+                elasticClient.bulk().executeBulk(false);
+            }
+            elasticClient.bulk().executeBulk(true);
+
+            var metrics = sizing.metrics();
+            assertEquals(0, metrics.inFlight());
+            assertTrue(metrics.batchBytes() > 1024);
+            assertEquals(0.0, metrics.rejectionRate());
+            var doc = elasticClient.document().getDocument(TEST_INDEX, ids.get(ids.size() - 1));
+            assertNotNull(doc);
+            assertEquals("adaptive", doc.source().get("string"));
+        } finally {
+            elasticClient.bulk().setSizing(null);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testBulkWaitForRefresh() throws JsonProcessingException {
+        var id = testData.newId();
+        elasticClient.bulk().addIndexRequest(TEST_INDEX, id, Map.of("string", "bulkVisible"));
+        elasticClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+        assertEquals(1L, elasticClient.document().countByQuery(TEST_INDEX, StringSearchQuery.of("_id:" + id._id())));
+    }
+
+    @Test
+    void testSpoolSurvivesOutage() throws IOException {
+        Path spoolDir = Files.createTempDirectory("bulkspool");
+        var id = testData.newId();
+        var unavailable = new ElasticRestClient("http://localhost:1", "user", "password");
+        try (var spool = BulkSpool.open(spoolDir, 1 << 20, 16 << 20, true)) {
+            unavailable.bulk().setSpool(spool);
+            unavailable.bulk().addIndexRequest(TEST_INDEX, id, Map.of("string", "spooled"));
+            unavailable.bulk().executeBulk(true);
+            assertEquals(1, spool.pendingBatches());
+        }
+
+        try (var spool = BulkSpool.open(spoolDir, 1 << 20, 16 << 20, true)) {
+            assertEquals(1, spool.pendingBatches());
+            elasticClient.bulk().setSpool(spool);
+            assertEquals(0, spool.pendingBatches());
+            elasticClient.bulk().setSpool(null);
+        }
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertNotNull(doc);
+        assertEquals("spooled", doc.source().get("string"));
+    }
+
+    @Test
+    void testTimeSeriesIndex() throws JsonProcessingException {
+        var series = TimeSeriesIndex.daily("events-");
+        for (String timestamp : List.of("2024-05-17T08:00:00Z", "2024-05-17T23:59:59Z", "2024-05-18T00:00:00Z")) {
+            elasticClient.bulk().addIndexRequest(series, testData.newId(), Map.of("timestamp", timestamp, "string", "event"),
+                    doc -> doc.get("timestamp"));
+        }
+        elasticClient.bulk().executeBulk(true, Refresh.TRUE);
+        assertEquals(2L, elasticClient.document().countByQuery(Index.of("events-2024.05.17"), StringSearchQuery.of("string: event")));
+        assertEquals(1L, elasticClient.document().countByQuery(Index.of("events-2024.05.18"), StringSearchQuery.of("string: event")));
+        assertEquals(3L, elasticClient.document().countByQuery(Index.of(series.pattern()), StringSearchQuery.of("string: event")));
+    }
+
+    @Test
+    void testCoalescing() throws JsonProcessingException {
+        var id = testData.newId();
+        var deleted = testData.newId();
+        var bulk = elasticClient.bulk();
+        bulk.setCoalescing(true);
+        try {
+            bulk.addIndexRequest(TEST_INDEX, id, Map.of("string", "coalesced", "nested", Map.of("a", 1, "b", 1)));
+            bulk.addUpdateRequest(TEST_INDEX, id, Map.of("nested", Map.of("b", 2)));
+            bulk.addUpdateRequest(TEST_INDEX, id, Map.of("counter", 3));
+            bulk.addIndexRequest(TEST_INDEX, deleted, Map.of("string", "coalesced"));
+            bulk.addDeleteRequest(TEST_INDEX, deleted);
+            bulk.executeBulk(true, Refresh.TRUE);
+        } finally {
+            bulk.setCoalescing(false);
+        }
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertNotNull(doc);
+        assertEquals(Map.of("a", 1, "b", 2), doc.source().get("nested"));
+        assertEquals(3, doc.source().get("counter"));
+        assertEquals(1, doc.version());
+        assertNull(elasticClient.document().getDocument(TEST_INDEX, deleted));
+    }
+}
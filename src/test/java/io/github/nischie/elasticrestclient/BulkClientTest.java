@@ -0,0 +1,163 @@
+package io.github.nischie.elasticrestclient;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.github.nischie.elasticrestclient.client.BulkClient;
+import io.github.nischie.elasticrestclient.client.BulkSpool;
+import io.github.nischie.elasticrestclient.client.RejectedBulkBatchException;
+import io.github.nischie.elasticrestclient.client.ElasticRestClient;
+import io.github.nischie.elasticrestclient.domain.model.Id;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the bulk bodies sent by the BulkClient against a stub server, without an Elasticsearch cluster.
+ */
+class BulkClientTest {
+    private static final Index INDEX = Index.of("coalesce");
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> bodies = new ArrayList<>();
+    private volatile ToIntFunction<String> statusFor = body -> 200;
+    private HttpServer server;
+    private BulkClient bulk;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            int status = statusFor.applyAsInt(body);
+            byte[] response = (status == 200 ? "{\"took\":1,\"errors\":false,\"items\":[]}" : "{\"error\":\"rejected\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, response.length);
+            exchange.getResponseBody().write(response);
+            exchange.close();
+        });
+        server.start();
+        bulk = new ElasticRestClient("http://localhost:" + server.getAddress().getPort(), "user", "password").bulk();
+        bulk.setCoalescing(true);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void testUpdateMergedIntoIndex() throws IOException {
+        bulk.addIndexRequest(INDEX, Id.of("1"), Map.of("x", 1));
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("y", 2));
+        bulk.executeBulk(true);
+
+        List<Map<?, ?>> lines = sentLines();
+        assertEquals(2, lines.size());
+        assertEquals(Map.of("_index", "coalesce", "_id", "1"), lines.get(0).get("index"));
+        assertEquals(Map.of("x", 1, "y", 2), lines.get(1));
+    }
+
+    @Test
+    void testUpdatesMergedIntoUpdate() throws IOException {
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("x", 1, "nested", Map.of("a", 1)));
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("nested", Map.of("b", 2)));
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("y", 3));
+        bulk.executeBulk(true);
+
+        List<Map<?, ?>> lines = sentLines();
+        assertEquals(2, lines.size());
+        assertNotNull(lines.get(0).get("update"));
+        assertEquals(Map.of("doc", Map.of("x", 1, "y", 3, "nested", Map.of("a", 1, "b", 2))), lines.get(1));
+    }
+
+    @Test
+    void testIndexThenUpdateThenDelete() throws IOException {
+        bulk.addIndexRequest(INDEX, Id.of("1"), Map.of("x", 1));
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("y", 2));
+        bulk.addIndexRequest(INDEX, Id.of("2"), Map.of("x", 2));
+        bulk.addDeleteRequest(INDEX, Id.of("1"));
+        bulk.executeBulk(true);
+
+        List<Map<?, ?>> lines = sentLines();
+        assertEquals(3, lines.size());
+        assertEquals("2", ((Map<?, ?>) lines.get(0).get("index")).get("_id"));
+        assertEquals(Map.of("x", 2), lines.get(1));
+        assertEquals("1", ((Map<?, ?>) lines.get(2).get("delete")).get("_id"));
+    }
+
+    @Test
+    void testUpdateAfterDeleteKeepsBoth() throws IOException {
+        bulk.addDeleteRequest(INDEX, Id.of("1"));
+        bulk.addUpdateRequest(INDEX, Id.of("1"), Map.of("y", 2));
+        bulk.executeBulk(true);
+
+        List<Map<?, ?>> lines = sentLines();
+        assertEquals(3, lines.size());
+        assertNotNull(lines.get(0).get("delete"));
+        assertNotNull(lines.get(1).get("update"));
+    }
+
+    @Test
+    void testRejectedSpoolBatchDoesNotBlockLaterBatches(@TempDir Path directory) throws IOException {
+        try (BulkSpool spool = BulkSpool.open(directory, 1 << 20, 16 << 20, false)) {
+            bulk.setSpool(spool);
+            statusFor = body -> 503;
+            bulk.addIndexRequest(INDEX, Id.of("bad"), Map.of("x", 1));
+            bulk.executeBulk(true);
+            bulk.addIndexRequest(INDEX, Id.of("good"), Map.of("x", 2));
+            bulk.executeBulk(true);
+            assertEquals(2, spool.pendingBatches());
+
+            statusFor = body -> body.contains("\"bad\"") ? 413 : 200;
+            bodies.clear();
+            var rejected = assertThrows(RejectedBulkBatchException.class, bulk::replaySpool);
+            assertTrue(new String(rejected.payload(), StandardCharsets.UTF_8).contains("\"bad\""));
+            assertEquals(0, spool.pendingBatches());
+            assertEquals(2, bodies.size());
+            assertTrue(bodies.get(1).contains("\"good\""));
+        }
+    }
+
+    @Test
+    void testDiscardSpoolHead(@TempDir Path directory) throws IOException {
+        try (BulkSpool spool = BulkSpool.open(directory, 1 << 20, 16 << 20, false)) {
+            bulk.setSpool(spool);
+            statusFor = body -> 401;
+            bulk.addIndexRequest(INDEX, Id.of("1"), Map.of("x", 1));
+            assertThrows(HttpClientErrorException.Unauthorized.class, () -> bulk.executeBulk(true));
+            assertEquals(1, spool.pendingBatches());
+
+            byte[] discarded = spool.discardHead();
+            assertTrue(new String(discarded, StandardCharsets.UTF_8).contains("\"_id\": \"1\""));
+            assertEquals(0, spool.pendingBatches());
+            assertNull(spool.discardHead());
+            assertTrue(bulk.replaySpool());
+        }
+    }
+
+    private List<Map<?, ?>> sentLines() throws IOException {
+        assertEquals(1, bodies.size(), "expected exactly one bulk request");
+        List<Map<?, ?>> lines = new ArrayList<>();
+        for (String line : bodies.get(0).split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(mapper.readValue(line, Map.class));
+            }
+        }
+        return lines;
+    }
+}
@@ -1,15 +1,41 @@
 package io.github.nischie.elasticrestclient;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.nischie.elasticrestclient.client.AsyncSearchHandle;
 import io.github.nischie.elasticrestclient.client.ElasticRestClient;
+import io.github.nischie.elasticrestclient.client.HedgePolicy;
+import io.github.nischie.elasticrestclient.client.ResiliencePolicy;
+import io.github.nischie.elasticrestclient.client.SlowQueryLog;
+import io.github.nischie.elasticrestclient.client.WatermarkStore;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
+import io.github.nischie.elasticrestclient.domain.model.Field;
+import io.github.nischie.elasticrestclient.domain.indices.IndexDefinition;
 import io.github.nischie.elasticrestclient.domain.model.Id;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.domain.model.Value;
+import io.github.nischie.elasticrestclient.domain.queries.AsyncSearchOptions;
+import io.github.nischie.elasticrestclient.domain.queries.ByQueryOptions;
+import io.github.nischie.elasticrestclient.domain.queries.ChangeTracking;
+import io.github.nischie.elasticrestclient.domain.queries.PartialUpdate;
+import io.github.nischie.elasticrestclient.domain.queries.Script;
+import io.github.nischie.elasticrestclient.domain.queries.SearchParams;
 import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+import io.github.nischie.elasticrestclient.util.DocumentCodec;
+import io.github.nischie.elasticrestclient.util.JsonCodec;
 import io.github.nischie.elasticrestclient.util.JsonUtil;
 import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -106,6 +132,82 @@ class DocumentClientIT extends BaseIT{
         assertNull(deletedDoc, "Document should be deleted and not found");
     }
 
+    @Test
+    void testPartialUpdate() throws JsonProcessingException {
+        var id = testData.newId();
+        var resp = elasticClient.document().update(TEST_INDEX, id, PartialUpdate.docAsUpsert(Map.of("string", "upserted")));
+        assertEquals("created", resp.getBody().get("result"));
+        elasticClient.document().update(TEST_INDEX, id, PartialUpdate.doc(Map.of("int", 1)), 3);
+        elasticClient.document().update(TEST_INDEX, id,
+                PartialUpdate.script(Script.of("ctx._source.int += params.inc", Map.of("inc", 2))), 3);
+
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertEquals("upserted", doc.source().get("string"));
+        assertEquals(3, doc.source().get("int"));
+    }
+
+    @Test
+    void testConditionalIndexAndDelete() throws JsonProcessingException {
+        var id = testData.newId();
+        elasticClient.document().index(TEST_INDEX, id, Map.of("string", "v1"));
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        var revision = doc.seqNoPrimaryTerm();
+        assertNotNull(revision);
+
+        var resp = elasticClient.document().index(TEST_INDEX, id, Map.of("string", "v2"), revision);
+        assertEquals("updated", resp.getBody().get("result"));
+        assertThrows(HttpClientErrorException.Conflict.class,
+                () -> elasticClient.document().index(TEST_INDEX, id, Map.of("string", "v3"), revision));
+        assertThrows(HttpClientErrorException.Conflict.class,
+                () -> elasticClient.document().delete(TEST_INDEX, id, revision));
+
+        var current = elasticClient.document().getDocument(TEST_INDEX, id).seqNoPrimaryTerm();
+        assertEquals("deleted", elasticClient.document().delete(TEST_INDEX, id, current).getBody().get("result"));
+    }
+
+    @Test
+    void testUpdateByQuery() throws JsonProcessingException, InterruptedException {
+        var id = testData.newId();
+        elasticClient.document().index(TEST_INDEX, id, Map.of("string", "updateByQuery"));
+        Thread.sleep(1000);
+        var query = StringSearchQuery.of("string: \"updateByQuery\"");
+        var resp = elasticClient.document().updateByStringQuery(TEST_INDEX, query, Map.of(
+                Field.of("int"), Value.of(42),
+                Field.of("nested.flag"), Value.of(true)));
+        assertEquals(1, resp.getBody().get("updated"));
+
+        elasticClient.document().putStoredScript("increment-int", Script.of("ctx._source.int += params.inc"));
+        Thread.sleep(1000);
+        elasticClient.document().updateByStringQuery(TEST_INDEX, query, Script.stored("increment-int", Map.of("inc", 1)));
+
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertEquals(43, doc.source().get("int"));
+        assertEquals(true, ((Map<?, ?>) doc.source().get("nested")).get("flag"));
+    }
+
+    @Test
+    void testAsyncByQuery() throws JsonProcessingException, InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            elasticClient.document().index(TEST_INDEX, testData.newId(), Map.of("string", "asyncByQuery"));
+        }
+        Thread.sleep(1000);
+        var query = StringSearchQuery.of("string: \"asyncByQuery\"");
+        var options = ByQueryOptions.defaults().autoSlices().requestsPerSecond(1000).proceedOnConflicts();
+
+        var update = elasticClient.document().updateByStringQueryAsync(TEST_INDEX, query,
+                Map.of(Field.of("int"), Value.of(7)), options);
+        assertNotNull(update.taskId());
+        update.rethrottle(-1);
+        var updated = update.awaitCompletion(Duration.ofMillis(200));
+        assertTrue(updated.completed());
+        assertEquals(20, updated.progress().updated());
+
+        Thread.sleep(1000);
+        var delete = elasticClient.document().deleteByStringQueryAsync(TEST_INDEX, query, options);
+        var deleted = delete.awaitCompletion(Duration.ofMillis(200));
+        assertEquals(20, deleted.progress().deleted());
+    }
+
     @Test
     void pojoParsingTest() throws JsonProcessingException {
         var id = testData.newId();
@@ -123,5 +225,231 @@ class DocumentClientIT extends BaseIT{
         TestData.TestPOJO sourcePOJO = doc.sourceAs(TestData.TestPOJO.class);
         assertEquals(getTestPOJO(), sourcePOJO);
     }
-}
 
+    @Test
+    void testRawPassthrough() throws JsonProcessingException, InterruptedException {
+        var id = testData.newId();
+        byte[] source = "{\"string\":\"rawPassthrough\",\"int\":1}".getBytes(StandardCharsets.UTF_8);
+        var resp = elasticClient.document().index(TEST_INDEX, id, source);
+        assertEquals("created", resp.getBody().get("result"));
+        elasticClient.document().index(TEST_INDEX, testData.newId(), new ByteArrayInputStream(source));
+        assertArrayEquals(source, elasticClient.document().getRawSource(TEST_INDEX, id));
+
+        Thread.sleep(1000);
+        var hits = elasticClient.document().searchRawDocuments(TEST_INDEX, StringSearchQuery.of("string: rawPassthrough"), 10);
+        assertEquals(2, hits.size());
+        for (var hit : hits) {
+            assertArrayEquals(source, hit.sourceBytes());
+        }
+    }
+
+    record Point(String name, int x) {}
+
+    static class PointCodec implements DocumentCodec<Point> {
+        @Override
+        public Class<Point> type() {
+            return Point.class;
+        }
+
+        @Override
+        public void write(Point point, JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("name", point.name());
+            generator.writeNumberField("x", point.x());
+            generator.writeEndObject();
+        }
+
+        @Override
+        public Point read(JsonParser parser) throws IOException {
+            String name = null;
+            int x = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = parser.getText();
+                    case "x" -> x = parser.getIntValue();
+                    default -> parser.skipChildren();
+                }
+            }
+            return new Point(name, x);
+        }
+    }
+
+    @Test
+    void testDocumentCodec() throws JsonProcessingException, InterruptedException {
+        var codec = new JsonCodec().register(new PointCodec());
+        var client = new ElasticRestClient(getHttpHostAddress(), "user", "password", codec);
+        var id = testData.newId();
+        client.document().index(TEST_INDEX, id, new Point("codecPoint", 7));
+
+        assertEquals(new Point("codecPoint", 7), client.document().getDocument(TEST_INDEX, id, Point.class));
+        assertEquals(new Point("codecPoint", 7), client.document().getDocument(TEST_INDEX, id).sourceAs(Point.class, codec));
+        Thread.sleep(1000);
+        var hits = client.document().searchDocuments(TEST_INDEX, StringSearchQuery.of("name: codecPoint"), 10, Point.class);
+        assertEquals(List.of(new Point("codecPoint", 7)), hits);
+    }
+
+    @Test
+    void testResilientClientSkipsUnavailableNode() throws JsonProcessingException {
+        var policy = ResiliencePolicy.defaults()
+                .retries(3, Duration.ofMillis(10), Duration.ofMillis(100))
+                .circuitBreaker(1, Duration.ofMinutes(1));
+        var client = new ElasticRestClient(List.of("http://localhost:1", getHttpHostAddress()),
+                "user", "password", JsonCodec.defaultCodec(), policy);
+        var id = testData.newId();
+        for (int i = 0; i < 4; i++) {
+            client.document().index(TEST_INDEX, id, TEST_DOCUMENT_SOURCE);
+            var doc = client.document().getDocument(TEST_INDEX, id);
+            assertNotNull(doc);
+            assertEquals("value", doc.source().get("string"));
+        }
+    }
+
+    @Test
+    void testHedgedReads() throws JsonProcessingException, InterruptedException {
+        var policy = ResiliencePolicy.defaults().hedging(HedgePolicy.percentile(90, Duration.ofMillis(1), 0.5));
+        var client = new ElasticRestClient(List.of(getHttpHostAddress(), getHttpHostAddress()),
+                "user", "password", JsonCodec.defaultCodec(), policy);
+        var id = testData.newId();
+        client.document().index(TEST_INDEX, id, TEST_DOCUMENT_SOURCE);
+        Thread.sleep(1000);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value", client.document().getDocument(TEST_INDEX, id).source().get("string"));
+            var hits = client.document().searchDocuments(TEST_INDEX, StringSearchQuery.of("_id:" + id._id()), 1);
+            assertEquals(1, hits.size());
+        }
+    }
+
+    @Test
+    void testRouting() throws JsonProcessingException {
+        var id = Id.of(testData.newId()._id(), "tenant-a");
+        elasticClient.document().withRefresh(Refresh.WAIT_FOR).index(TEST_INDEX, id, Map.of("string", "routed"));
+
+        var doc = elasticClient.document().getDocument(TEST_INDEX, id);
+        assertNotNull(doc);
+        assertEquals("tenant-a", doc.routing());
+        assertEquals(id, doc.docId());
+        var params = SearchParams.routing("tenant-a").withPreference("testRouting");
+        var hits = elasticClient.document().searchDocuments(TEST_INDEX, StringSearchQuery.of("string:routed"), 10, params);
+        assertEquals(1, hits.size());
+        assertEquals(1L, elasticClient.document().countByQuery(TEST_INDEX, StringSearchQuery.of("string:routed"), params));
+
+        elasticClient.bulk().addUpdateRequest(TEST_INDEX, id, Map.of("string", "routedBulk"));
+        elasticClient.bulk().executeBulk(true);
+        assertEquals("routedBulk", elasticClient.document().getDocument(TEST_INDEX, id).source().get("string"));
+        elasticClient.document().delete(TEST_INDEX, id);
+        assertNull(elasticClient.document().getDocument(TEST_INDEX, id));
+    }
+
+    @Test
+    void testRefreshPolicy() throws JsonProcessingException {
+        var id = testData.newId();
+        var query = StringSearchQuery.of("_id:" + id._id());
+        elasticClient.document().withRefresh(Refresh.WAIT_FOR).index(TEST_INDEX, id, Map.of("string", "visible"));
+        assertEquals(1L, elasticClient.document().countByQuery(TEST_INDEX, query));
+
+        elasticClient.document().withRefresh(Refresh.TRUE).delete(TEST_INDEX, id);
+        assertEquals(0L, elasticClient.document().countByQuery(TEST_INDEX, query));
+    }
+
+    @Test
+    void testVectorFields() throws JsonProcessingException {
+        var index = Index.of("vectors");
+        var mappings = Map.of("properties", Map.of("embedding", Map.of("type", "dense_vector", "dims", 3)));
+        elasticClient.index().createIndex(index, IndexDefinition.of(1, 0, mappings));
+        var vectorClient = new ElasticRestClient(getHttpHostAddress(), "user", "password", new JsonCodec().vectorFields("embedding"));
+        var id = testData.newId();
+        vectorClient.bulk().addIndexRequest(index, id, new Embedded("first", new float[]{0.5f, -1f, 2.25f}));
+        vectorClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+
+        var doc = vectorClient.document().getDocument(index, id);
+        assertInstanceOf(float[].class, doc.source().get("embedding"));
+        assertArrayEquals(new float[]{0.5f, -1f, 2.25f}, doc.vector("embedding"));
+        var hits = vectorClient.document().searchDocuments(index, StringSearchQuery.of("title:first"), 10, Embedded.class);
+        assertArrayEquals(new float[]{0.5f, -1f, 2.25f}, hits.get(0).embedding());
+    }
+
+    record Embedded(String title, float[] embedding) {}
+
+    @Test
+    void testChangeReader() throws IOException {
+        var index = Index.of("changes");
+        var mappings = Map.of("properties", Map.of(
+                "updated_at", Map.of("type", "date"),
+                "doc_id", Map.of("type", "keyword")));
+        elasticClient.index().createIndex(index, IndexDefinition.of(2, 0, mappings));
+        long past = System.currentTimeMillis() - 60_000;
+        for (int i = 0; i < 25; i++) {
+            var id = testData.newId();
+            elasticClient.bulk().addIndexRequest(index, id, Map.of("updated_at", past + i % 5, "doc_id", id._id()));
+        }
+        elasticClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+
+        var tracking = ChangeTracking.of("updated_at", "doc_id").settleLag(Duration.ofSeconds(1)).pageSize(10);
+        var store = WatermarkStore.inMemory();
+        List<String> read = new ArrayList<>();
+        assertEquals(25, elasticClient.changeReader(index, tracking, store).poll(page -> page.forEach(doc -> read.add(doc.id()))));
+        assertEquals(0, elasticClient.changeReader(index, tracking, store).poll(page -> fail("no changes expected")));
+
+        var updated = Id.of(read.get(3));
+        elasticClient.document().withRefresh(Refresh.WAIT_FOR).index(index, updated, Map.of("updated_at", past + 10, "doc_id", updated._id()));
+        List<String> changed = new ArrayList<>();
+        assertEquals(1, elasticClient.changeReader(index, tracking, store).poll(page -> page.forEach(doc -> changed.add(doc.id()))));
+        assertEquals(List.of(updated._id()), changed);
+        assertEquals(past + 10, store.load().timestamp());
+    }
+
+    @Test
+    void testSlowQueryLog() throws JsonProcessingException {
+        var client = BaseIT.getElasticRestClient();
+        List<SlowQueryLog.Entry> entries = new ArrayList<>();
+        client.document().setSlowQueryLog(SlowQueryLog.of(Duration.ZERO, entries::add).withProfile());
+        client.document().searchDocuments(TEST_INDEX, StringSearchQuery.of("string: slow"), 10);
+        client.document().countByQuery(TEST_INDEX, StringSearchQuery.of("string: slow"));
+
+        assertEquals(2, entries.size());
+        var search = entries.get(0);
+        assertEquals("_search", search.operation());
+        assertEquals(TEST_INDEX, search.index());
+        assertTrue(search.query().contains("string: slow"));
+        assertNotNull(search.took());
+        assertTrue(search.responseBytes() > 0);
+        assertFalse(search.shardProfiles().isEmpty());
+        assertEquals("_count", entries.get(1).operation());
+        assertFalse(entries.get(1).shardProfiles().isEmpty());
+    }
+
+    @Test
+    void testFailingSlowQueryListenerIgnored() throws JsonProcessingException {
+        var client = BaseIT.getElasticRestClient();
+        client.document().setSlowQueryLog(SlowQueryLog.of(Duration.ZERO, entry -> {
+            throw new IllegalStateException("listener failed");
+        }));
+        assertNotNull(client.document().searchDocuments(TEST_INDEX, StringSearchQuery.of("*"), 10));
+        assertNotNull(client.document().countByQuery(TEST_INDEX, StringSearchQuery.of("*")));
+    }
+
+    @Test
+    void testAsyncSearch() throws JsonProcessingException, InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            elasticClient.document().index(TEST_INDEX, testData.newId(), Map.of("string", "asyncSearch", "int", i));
+        }
+        Thread.sleep(1000);
+        var options = AsyncSearchOptions.defaults().keepAlive(Duration.ofMinutes(1)).keepResults().size(3);
+        AsyncSearchHandle handle = elasticClient.asyncSearch().submit(TEST_INDEX, StringSearchQuery.of("string: asyncSearch"),
+                Map.of("max_int", Map.of("max", Map.of("field", "int"))), options);
+        assertNotNull(handle.id());
+
+        var result = handle.awaitCompletion(Duration.ofMillis(200));
+        assertFalse(result.running());
+        assertEquals(3, result.searchHits().size());
+        assertEquals(4.0, ((Number) ((Map<?, ?>) result.aggregations().get("max_int")).get("value")).doubleValue());
+
+        var resumed = elasticClient.asyncSearch().handle(handle.id());
+        assertEquals(3, resumed.poll().searchHits().size());
+        assertFalse(resumed.status().running());
+        resumed.delete();
+        assertThrows(HttpClientErrorException.NotFound.class, resumed::poll);
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.nischie.elasticrestclient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.github.nischie.elasticrestclient.client.DumpClient;
+import io.github.nischie.elasticrestclient.client.DumpOptions;
+import io.github.nischie.elasticrestclient.client.ElasticRestClient;
+import io.github.nischie.elasticrestclient.domain.model.Id;
+import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DumpClientIT extends BaseIT {
+    private ElasticRestClient elasticClient = BaseIT.getElasticRestClient();
+    private final TestData testData = new TestData();
+
+    @Test
+    void testDumpAndRestore(@TempDir Path directory) throws IOException {
+        var source = Index.of("dump-source");
+        var target = Index.of("dump-target");
+        elasticClient.index().createIndex(source);
+        elasticClient.index().createIndex(target);
+        for (int i = 0; i < 500; i++) {
+            elasticClient.bulk().addIndexRequest(source, testData.newId(), Map.of("n", i, "string", "dumped"));
+        }
+        elasticClient.bulk().addIndexRequest(source, Id.of("routed", "tenant-1"), Map.of("string", "routed"));
+        elasticClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+
+        DumpClient.DumpResult dump = elasticClient.dump().dump(source, directory,
+                DumpOptions.defaults().slices(2).pageSize(100).segmentBytes(4096));
+        assertEquals(501, dump.documents());
+        assertTrue(dump.segments().size() > 2);
+        // files of other tools in the directory are not restored
+        Files.writeString(directory.resolve("notes.ndjson"), "{\"not\": \"a segment\"}\n");
+
+        DumpClient.RestoreResult restore = elasticClient.dump().restore(directory, target);
+        assertEquals(dump.segments().size(), restore.segments());
+        assertEquals(501, restore.documents());
+        elasticClient.index().refresh(target);
+        assertEquals(501L, elasticClient.document().countByQuery(target, StringSearchQuery.of("*")));
+        assertNotNull(elasticClient.document().getDocument(target, Id.of("routed", "tenant-1")));
+    }
+
+    @Test
+    void testDumpAndRestoreZstd(@TempDir Path directory) throws JsonProcessingException {
+        var source = Index.of("dump-zstd-source");
+        var target = Index.of("dump-zstd-target");
+        elasticClient.index().createIndex(source);
+        elasticClient.index().createIndex(target);
+        for (int i = 0; i < 200; i++) {
+            elasticClient.bulk().addIndexRequest(source, testData.newId(), Map.of("n", i, "string", "zstd"));
+        }
+        elasticClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+
+        DumpClient.DumpResult dump = elasticClient.dump().dump(source, directory,
+                DumpOptions.defaults().compression(DumpOptions.Compression.ZSTD).segmentBytes(4096));
+        assertEquals(200, dump.documents());
+        assertTrue(dump.segments().stream().allMatch(segment -> segment.toString().endsWith(".ndjson.zst")));
+
+        DumpClient.RestoreResult restore = elasticClient.dump().restore(directory, target);
+        assertEquals(200, restore.documents());
+        elasticClient.index().refresh(target);
+        assertEquals(200L, elasticClient.document().countByQuery(target, StringSearchQuery.of("*")));
+    }
+}
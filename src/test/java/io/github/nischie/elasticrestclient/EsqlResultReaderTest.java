@@ -0,0 +1,129 @@
+package io.github.nischie.elasticrestclient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import io.github.nischie.elasticrestclient.domain.esql.EsqlResult;
+import io.github.nischie.elasticrestclient.util.EsqlResultReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the decoding of columnar ES|QL responses from canned JSON, without an Elasticsearch cluster.
+ */
+class EsqlResultReaderTest {
+    private final JsonFactory factory = new JsonFactory();
+
+    @Test
+    void testColumnsAndNulls() throws IOException {
+        EsqlResult result = read("""
+                {"took": 7, "columns": [
+                  {"name": "n", "type": "long"},
+                  {"name": "avg", "type": "double"},
+                  {"name": "ok", "type": "boolean"},
+                  {"name": "host", "type": "keyword"}
+                ], "values": [
+                  [1, null, 3],
+                  [1.5, 2.5, null],
+                  [true, null, false],
+                  ["a", "b", null]
+                ]}""");
+
+        assertEquals(3, result.rowCount());
+        assertEquals(7L, result.took());
+        assertEquals(1, result.longs("n")[0]);
+        assertEquals(3, result.longs("n")[2]);
+        assertTrue(result.column("n").isNull(1));
+        assertEquals(2.5, result.doubles("avg")[1]);
+        assertTrue(result.column("avg").isNull(2));
+        assertTrue(result.booleans("ok")[0]);
+        assertTrue(result.column("ok").isNull(1));
+        assertEquals("b", result.strings("host").get(1));
+        assertNull(result.strings("host").get(2));
+        assertTrue(result.column("host").isNull(2));
+    }
+
+    @Test
+    void testDictionaryCodes() throws IOException {
+        EsqlResult result = read("""
+                {"columns": [{"name": "host", "type": "keyword"}],
+                 "values": [["a", "b", "a", null, "b"]]}""");
+
+        EsqlResult.StringColumn hosts = result.strings("host");
+        assertArrayEquals(new String[]{"a", "b"}, hosts.dictionary());
+        assertArrayEquals(new int[]{0, 1, 0, -1, 1}, hosts.codes());
+    }
+
+    @Test
+    void testDates() throws IOException {
+        EsqlResult result = read("""
+                {"columns": [{"name": "at", "type": "date"}],
+                 "values": [["2024-05-01T10:15:30.123Z", 1714558530123]]}""");
+
+        long expected = Instant.parse("2024-05-01T10:15:30.123Z").toEpochMilli();
+        assertArrayEquals(new long[]{expected, expected}, result.longs("at"));
+    }
+
+    @Test
+    void testUnsignedLong() throws IOException {
+        EsqlResult result = read("""
+                {"columns": [{"name": "u", "type": "unsigned_long"}],
+                 "values": [[1, 9223372036854775807, 18446744073709551615, 9223372036854775808]]}""");
+
+        long[] values = result.longs("u");
+        assertEquals(1, values[0]);
+        assertEquals(Long.MAX_VALUE, values[1]);
+        assertEquals("18446744073709551615", Long.toUnsignedString(values[2]));
+        assertEquals("9223372036854775808", Long.toUnsignedString(values[3]));
+    }
+
+    @Test
+    void testGrowsPastInitialCapacity() throws IOException {
+        int rows = 2500;
+        String longs = IntStream.range(0, rows).mapToObj(Integer::toString).collect(Collectors.joining(","));
+        String strings = IntStream.range(0, rows).mapToObj(i -> "\"v" + i % 3 + "\"").collect(Collectors.joining(","));
+        EsqlResult result = read("{\"columns\": [{\"name\": \"n\", \"type\": \"integer\"}, {\"name\": \"s\", \"type\": \"keyword\"}],"
+                + " \"values\": [[" + longs + "], [" + strings + "]]}");
+
+        assertEquals(rows, result.rowCount());
+        assertEquals(rows, result.longs("n").length);
+        assertEquals(rows - 1, result.longs("n")[rows - 1]);
+        assertEquals("v" + (rows - 1) % 3, result.strings("s").get(rows - 1));
+        assertEquals(3, result.strings("s").dictionary().length);
+    }
+
+    @Test
+    void testEmptyValues() throws IOException {
+        EsqlResult result = read("""
+                {"columns": [{"name": "n", "type": "long"}, {"name": "host", "type": "keyword"}], "values": []}""");
+
+        assertEquals(0, result.rowCount());
+        assertEquals(2, result.columns().size());
+        assertEquals(0, result.longs("n").length);
+        assertEquals(0, result.strings("host").codes().length);
+    }
+
+    @Test
+    void testMultiValuedCellRejected() {
+        IOException e = assertThrows(IOException.class, () -> read("""
+                {"columns": [{"name": "tags", "type": "keyword"}], "values": [[["a", "b"]]]}"""));
+        assertTrue(e.getMessage().contains("tags"));
+    }
+
+    @Test
+    void testValuesBeforeColumnsRejected() {
+        IOException e = assertThrows(IOException.class, () -> read("""
+                {"values": [[1]], "columns": [{"name": "n", "type": "long"}]}"""));
+        assertTrue(e.getMessage().contains("values before columns"));
+    }
+
+    private EsqlResult read(String json) throws IOException {
+        try (var parser = factory.createParser(json)) {
+            return EsqlResultReader.read(parser);
+        }
+    }
+}
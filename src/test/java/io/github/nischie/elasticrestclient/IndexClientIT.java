@@ -2,10 +2,21 @@ package io.github.nischie.elasticrestclient;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.nischie.elasticrestclient.client.ElasticRestClient;
+import io.github.nischie.elasticrestclient.domain.indices.AliasActions;
+import io.github.nischie.elasticrestclient.domain.indices.IndexDefinition;
+import io.github.nischie.elasticrestclient.domain.indices.RolloverConditions;
 import io.github.nischie.elasticrestclient.domain.model.Index;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
+import io.github.nischie.elasticrestclient.domain.queries.ByQueryOptions;
+import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,5 +39,108 @@ class IndexClientIT extends BaseIT{
         var aliases = indexClient.getAliases(index);
         assertEquals(1, aliases.keySet().size());
     }
-}
 
+    @Test
+    void testCoalescedRefresh() throws Exception {
+        var indexClient = elasticClient.index();
+        var first = Index.of("refreshtest1");
+        var second = Index.of("refreshtest2");
+        indexClient.createIndex(first);
+        indexClient.createIndex(second);
+        indexClient.putSettings(first, Map.of("index.refresh_interval", "-1"));
+        indexClient.putSettings(second, Map.of("index.refresh_interval", "-1"));
+        elasticClient.document().index(first, testData.newId(), Map.of("string", "refreshed"));
+        elasticClient.document().index(second, testData.newId(), Map.of("string", "refreshed"));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var refreshes = new ArrayList<Future<?>>();
+            for (int i = 0; i < 16; i++) {
+                var index = i % 2 == 0 ? first : second;
+                refreshes.add(executor.submit(() -> indexClient.refresh(index)));
+            }
+            for (var refresh : refreshes) {
+                refresh.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1L, elasticClient.document().countByQuery(first, StringSearchQuery.of("string: refreshed")));
+        assertEquals(1L, elasticClient.document().countByQuery(second, StringSearchQuery.of("string: refreshed")));
+    }
+
+    @Test
+    void testBulkLoad() throws JsonProcessingException {
+        var indexClient = elasticClient.index();
+        var index = Index.of("bulkloadtest");
+        var mappings = Map.of("properties", Map.of("string", Map.of("type", "keyword")));
+        var created = indexClient.createIndex(index, IndexDefinition.of(2, 1, mappings)).getBody();
+        assertEquals(true, created.get("acknowledged"));
+        assertEquals("2", indexClient.getSettings(index).get("index.number_of_shards"));
+
+        indexClient.bulkLoad(index, elasticClient.bulk(), bulk -> {
+            assertEquals("-1", indexClient.getSettings(index).get("index.refresh_interval"));
+            for (int i = 0; i < 50; i++) {
+                bulk.addIndexRequest(index, testData.newId(), Map.of("string", "bulkLoaded"));
+            }
+        });
+
+        var settings = indexClient.getSettings(index);
+        assertNull(settings.get("index.refresh_interval"));
+        assertEquals("1", settings.get("index.number_of_replicas"));
+        assertEquals(50L, elasticClient.document().countByQuery(index, StringSearchQuery.of("string: bulkLoaded")));
+    }
+
+    @Test
+    void testReindexAndSwapAlias() throws JsonProcessingException, InterruptedException {
+        var indexClient = elasticClient.index();
+        var alias = "rebuildalias";
+        var v1 = Index.of("rebuild-v1");
+        var v2 = Index.of("rebuild-v2");
+        indexClient.createIndex(v1);
+        indexClient.updateAliases(AliasActions.create().add(v1, alias));
+        for (int i = 0; i < 30; i++) {
+            elasticClient.document().index(v1, testData.newId(), Map.of("string", "rebuild"));
+        }
+        indexClient.refresh(v1);
+
+        List<Long> progress = new ArrayList<>();
+        var oldIndices = indexClient.reindexAndSwapAlias(alias, v2, IndexDefinition.of(1, 0, null),
+                ByQueryOptions.defaults().autoSlices().proceedOnConflicts(), Duration.ofMillis(200),
+                status -> progress.add(status.progress() == null ? 0 : status.progress().processed()));
+
+        assertEquals(List.of(v1), oldIndices);
+        assertEquals(List.of(v2), indexClient.getIndicesForAlias(alias));
+        assertFalse(progress.isEmpty());
+        assertEquals(30L, elasticClient.document().countByQuery(Index.of(alias), StringSearchQuery.of("string: rebuild")));
+    }
+
+    @Test
+    void testDataStreamRollover() throws JsonProcessingException {
+        var indexClient = elasticClient.index();
+        var stream = Index.of("applogs-rollover");
+        Map<String, Object> mappings = Map.of("properties", Map.of("@timestamp", Map.of("type", "date")));
+        indexClient.putIndexTemplate("applogs", List.of("applogs-*"), IndexDefinition.of(1, 0, mappings), true);
+        elasticClient.bulk().addCreateRequest(stream, Map.of("@timestamp", "2024-05-17T13:45:00Z", "string", "logged"));
+        elasticClient.bulk().executeBulk(true, Refresh.TRUE);
+
+        var notMet = indexClient.rollover(stream._index(), RolloverConditions.none().maxDocs(2));
+        assertFalse(notMet.rolledOver());
+        var rolled = indexClient.rollover(stream._index(), RolloverConditions.none().maxDocs(1).maxAge(Duration.ofDays(1)));
+        assertTrue(rolled.rolledOver());
+        assertEquals(Boolean.TRUE, rolled.conditions().get("[max_docs: 1]"));
+        assertNotEquals(rolled.oldIndex(), rolled.newIndex());
+        assertEquals(1L, elasticClient.document().countByQuery(stream, StringSearchQuery.of("string: logged")));
+        indexClient.deleteDataStream(stream._index());
+    }
+
+    @Test
+    void testWarmUp() {
+        var client = BaseIT.getElasticRestClient();
+        var health = client.warmUp(2, TestPojo.class);
+        assertNotNull(health.get("status"));
+        assertNotNull(client.codec().codecFor(TestPojo.class));
+    }
+
+    record TestPojo(String string, int number) {}
+}
@@ -4,11 +4,13 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import io.github.nischie.elasticrestclient.client.ElasticRestClient;
 import io.github.nischie.elasticrestclient.domain.documents.ElasticDocument;
 import io.github.nischie.elasticrestclient.domain.queries.StringSearchQuery;
+import io.github.nischie.elasticrestclient.domain.model.Refresh;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static io.github.nischie.elasticrestclient.TestData.TEST_INDEX;
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,5 +39,21 @@ class ScrollSearchIT extends BaseIT{
         }
         assertEquals(addedForSearch, documents.size());
     }
-}
 
+    @Test
+    void testScrollStream() throws JsonProcessingException {
+        for (int i = 0; i < 100; i++) {
+            elasticClient.bulk().addIndexRequest(TEST_INDEX, testData.newId(), Map.of("streamed", i));
+        }
+        elasticClient.bulk().executeBulk(true, Refresh.WAIT_FOR);
+
+        try (Stream<ElasticDocument> documents = elasticClient.scrollSearch(TEST_INDEX, StringSearchQuery.of("streamed:*"), 7).stream()) {
+            assertEquals(100, documents.count());
+        }
+        try (Stream<Streamed> documents = elasticClient.scrollSearch(TEST_INDEX, StringSearchQuery.of("streamed:*"), 7).stream(Streamed.class)) {
+            assertEquals(99 * 100 / 2, documents.parallel().mapToInt(Streamed::streamed).sum());
+        }
+    }
+
+    record Streamed(int streamed) {}
+}
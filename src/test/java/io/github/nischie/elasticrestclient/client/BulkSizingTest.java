@@ -0,0 +1,102 @@
+package io.github.nischie.elasticrestclient.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the AIMD decisions of BulkSizing with recorded outcomes, without sending any request.
+ */
+class BulkSizingTest {
+    private static final long MIB = 1L << 20;
+
+    @Test
+    void testGrowsWhileFast() {
+        var sizing = new BulkSizing(MIB, 4 * MIB, 1, 2, Duration.ofSeconds(1));
+        for (int i = 0; i < 3; i++) {
+            sizing.record(100, 80, 100, 0);
+        }
+        assertEquals(4 * MIB, sizing.batchBytes());
+        assertEquals(1, sizing.concurrency());
+        sizing.record(100, 80, 100, 0);
+        assertEquals(2, sizing.concurrency());
+    }
+
+    @Test
+    void testRejectionsDecreaseOncePerWindow() throws InterruptedException {
+        var sizing = new BulkSizing(MIB, 32 * MIB, 1, 8, Duration.ofSeconds(1));
+        grow(sizing);
+        assertEquals(32 * MIB, sizing.batchBytes());
+        assertEquals(8, sizing.concurrency());
+
+        for (int i = 0; i < 8; i++) {
+            sizing.acquire();
+        }
+        // all batches in flight see a 429, only the first one halves
+        for (int i = 0; i < 8; i++) {
+            sizing.record(200, 0, 1, 1);
+            sizing.release();
+        }
+        assertEquals(16 * MIB, sizing.batchBytes());
+        assertEquals(4, sizing.concurrency());
+
+        // a batch sent after the decrease is acted upon again
+        sizing.acquire();
+        sizing.record(200, 0, 1, 1);
+        sizing.release();
+        assertEquals(8 * MIB, sizing.batchBytes());
+        assertEquals(2, sizing.concurrency());
+    }
+
+    @Test
+    void testSingleSlowBatchDoesNotShrink() {
+        var sizing = new BulkSizing(MIB, 32 * MIB, 1, 1, Duration.ofSeconds(1));
+        for (int i = 0; i < 10; i++) {
+            sizing.record(100, 80, 100, 0);
+        }
+        long before = sizing.batchBytes();
+        sizing.record(3000, 2900, 100, 0);
+        assertTrue(sizing.batchBytes() >= before);
+        assertTrue(sizing.metrics().latencyMillis() < 1000);
+    }
+
+    @Test
+    void testSustainedSlowBatchesShrinkOncePerWindow() {
+        var sizing = new BulkSizing(MIB, 32 * MIB, 1, 1, Duration.ofSeconds(1));
+        for (int i = 0; i < 20; i++) {
+            sizing.record(100, 80, 100, 0);
+        }
+        assertEquals(21 * MIB, sizing.batchBytes());
+        // the first slow batch only lifts the average to 680 ms
+        sizing.record(3000, 2900, 100, 0);
+        assertEquals(22 * MIB, sizing.batchBytes());
+        sizing.record(3000, 2900, 100, 0);
+        assertEquals(22 * MIB * 3 / 4, sizing.batchBytes());
+        // the average restarts after the decrease, so the next decrease needs a few samples
+        sizing.record(3000, 2900, 100, 0);
+        sizing.record(3000, 2900, 100, 0);
+        assertEquals(22 * MIB * 3 / 4, sizing.batchBytes());
+        sizing.record(3000, 2900, 100, 0);
+        assertEquals(22 * MIB * 3 / 4 * 3 / 4, sizing.batchBytes());
+    }
+
+    @Test
+    void testQueueingShrinksConcurrency() {
+        var sizing = new BulkSizing(MIB, 4 * MIB, 1, 4, Duration.ofSeconds(1));
+        grow(sizing);
+        assertEquals(4, sizing.concurrency());
+        for (int i = 0; i < 3; i++) {
+            sizing.record(3000, 500, 100, 0);
+        }
+        assertEquals(3, sizing.concurrency());
+        assertEquals(4 * MIB, sizing.batchBytes());
+    }
+
+    private static void grow(BulkSizing sizing) {
+        for (int i = 0; i < 1000; i++) {
+            sizing.record(100, 80, 100, 0);
+        }
+    }
+}
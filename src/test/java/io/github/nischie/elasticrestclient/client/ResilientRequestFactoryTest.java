@@ -0,0 +1,282 @@
+package io.github.nischie.elasticrestclient.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the circuit breakers, retries, hedging and timeouts of ResilientRequestFactory against a stub
+ * request factory, without an Elasticsearch cluster.
+ */
+class ResilientRequestFactoryTest {
+    private static final List<String> HOSTS = List.of("http://node1:9200", "http://node2:9200");
+    private static final ResiliencePolicy NO_RETRIES = ResiliencePolicy.defaults()
+            .retries(0, Duration.ofMillis(1), Duration.ofMillis(1));
+
+    private final List<URI> sent = new CopyOnWriteArrayList<>();
+    private volatile Handler handler = (method, uri) -> 200;
+    private ResilientRequestFactory factory;
+
+    @AfterEach
+    void closeFactory() {
+        if (factory != null) {
+            factory.close();
+        }
+    }
+
+    @Test
+    void testBreakerOpensAndHalfOpens() throws Exception {
+        factory = factory(HOSTS.subList(0, 1), NO_RETRIES.circuitBreaker(2, Duration.ofMillis(200)));
+        handler = (method, uri) -> {
+            throw new ConnectException("refused");
+        };
+        assertThrows(ConnectException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertThrows(ConnectException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+
+        // open: the node is skipped without sending
+        IOException open = assertThrows(IOException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertTrue(open.getMessage().contains("circuit breakers are open"));
+        assertEquals(2, sent.size());
+
+        // half-open: a failing probe opens the breaker again
+        Thread.sleep(250);
+        assertThrows(ConnectException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertThrows(IOException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertEquals(3, sent.size());
+
+        // half-open: a successful probe closes it
+        Thread.sleep(250);
+        handler = (method, uri) -> 200;
+        assertEquals(200, execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertEquals(200, execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertEquals(5, sent.size());
+    }
+
+    @Test
+    void testOpenNodeSkipped() throws Exception {
+        factory = factory(HOSTS, NO_RETRIES.circuitBreaker(1, Duration.ofMinutes(1)));
+        handler = (method, uri) -> {
+            if (uri.getHost().equals("node1")) {
+                throw new ConnectException("refused");
+            }
+            return 200;
+        };
+        assertThrows(ConnectException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(200, execute(HttpMethod.GET, "/idx/_doc/1"));
+        }
+        assertEquals(List.of("node1", "node2", "node2", "node2", "node2"), sent.stream().map(URI::getHost).toList());
+    }
+
+    @Test
+    void testBulkNotRetried() throws Exception {
+        factory = factory(HOSTS, ResiliencePolicy.defaults().retries(3, Duration.ofMillis(1), Duration.ofMillis(1)));
+        handler = (method, uri) -> 502;
+        assertEquals(502, execute(HttpMethod.POST, "/_bulk"));
+        assertEquals(1, sent.size());
+
+        sent.clear();
+        handler = (method, uri) -> {
+            throw new IOException("connection reset");
+        };
+        assertThrows(IOException.class, () -> execute(HttpMethod.POST, "/_bulk"));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void testBulkRetriedIfNotExecuted() throws Exception {
+        factory = factory(HOSTS, ResiliencePolicy.defaults().retries(3, Duration.ofMillis(1), Duration.ofMillis(1)));
+        handler = (method, uri) -> sent.size() < 3 ? 429 : 200;
+        assertEquals(200, execute(HttpMethod.POST, "/_bulk"));
+        assertEquals(3, sent.size());
+
+        sent.clear();
+        handler = (method, uri) -> {
+            if (sent.size() < 2) {
+                throw new ConnectException("refused");
+            }
+            return 200;
+        };
+        assertEquals(200, execute(HttpMethod.POST, "/_bulk"));
+        assertEquals(2, sent.size());
+    }
+
+    @Test
+    void testReadRetried() throws Exception {
+        factory = factory(HOSTS, ResiliencePolicy.defaults().retries(3, Duration.ofMillis(1), Duration.ofMillis(1)));
+        handler = (method, uri) -> sent.size() < 3 ? 502 : 200;
+        assertEquals(200, execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    void testHedgeBudget() throws Exception {
+        factory = factory(HOSTS, NO_RETRIES.circuitBreaker(100, Duration.ofMinutes(1))
+                .hedging(new HedgePolicy(Duration.ofMillis(20), null, 0.5)));
+        // the primary is slow, the hedge carrying the hedge preference is fast
+        handler = (method, uri) -> {
+            if (!uri.getQuery().contains("preference=hedge-")) {
+                Thread.sleep(100);
+            }
+            return 200;
+        };
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, execute(HttpMethod.POST, "/idx/_search?q=x"));
+        }
+        long hedges = sent.stream().filter(uri -> uri.getQuery().contains("preference=hedge-")).count();
+        assertEquals(5, hedges);
+    }
+
+    @Test
+    void testScrollNotHedged() throws Exception {
+        factory = factory(HOSTS, NO_RETRIES.hedging(Duration.ofMillis(10)));
+        handler = (method, uri) -> {
+            Thread.sleep(50);
+            return 200;
+        };
+        assertEquals(200, execute(HttpMethod.POST, "/idx/_search?scroll=1m"));
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    void testTimeout() {
+        factory = factory(HOSTS, NO_RETRIES.timeouts(Duration.ofMillis(100), null, null));
+        handler = (method, uri) -> {
+            Thread.sleep(5_000);
+            return 200;
+        };
+        long start = System.nanoTime();
+        assertThrows(SocketTimeoutException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2_000);
+    }
+
+    @Test
+    void testTimeoutExtendedByWaitForCompletion() throws Exception {
+        factory = factory(HOSTS, NO_RETRIES.timeouts(Duration.ofMillis(100), null, null));
+        handler = (method, uri) -> {
+            Thread.sleep(250);
+            return 200;
+        };
+        assertEquals(200, execute(HttpMethod.GET, "/_async_search/id?wait_for_completion_timeout=1s"));
+    }
+
+    @Test
+    void testClosed() {
+        factory = factory(HOSTS, NO_RETRIES);
+        factory.close();
+        assertThrows(IllegalStateException.class, () -> execute(HttpMethod.GET, "/idx/_doc/1"));
+    }
+
+    private ResilientRequestFactory factory(List<String> hosts, ResiliencePolicy policy) {
+        ClientHttpRequestFactory stub = (uri, method) -> new StubRequest(uri, method);
+        return new ResilientRequestFactory(hosts, stub, policy);
+    }
+
+    private int execute(HttpMethod method, String pathAndQuery) throws IOException {
+        ClientHttpRequest request = factory.createRequest(URI.create("http://node1:9200" + pathAndQuery), method);
+        try (ClientHttpResponse response = request.execute()) {
+            return response.getStatusCode().value();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        int handle(HttpMethod method, URI uri) throws IOException, InterruptedException;
+    }
+
+    private final class StubRequest implements ClientHttpRequest {
+        private final URI uri;
+        private final HttpMethod method;
+        private final HttpHeaders headers = new HttpHeaders();
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private StubRequest(URI uri, HttpMethod method) {
+            this.uri = uri;
+            this.method = method;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            sent.add(uri);
+            try {
+                return new StubResponse(handler.handle(method, uri));
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Stub request interrupted");
+            }
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        @Override
+        public URI getURI() {
+            return uri;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private record StubResponse(int status) implements ClientHttpResponse {
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(status);
+        }
+
+        @Override
+        public String getStatusText() {
+            return "";
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    }
+}